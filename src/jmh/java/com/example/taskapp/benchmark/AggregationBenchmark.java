@@ -0,0 +1,74 @@
+package com.example.taskapp.benchmark;
+
+import com.example.taskapp.storage.Task;
+import com.example.taskapp.storage.UserTask;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the all-users aggregation over a synthetic multi-month history held in memory,
+ * comparing the sequential grouping with the parallel one on fork-join pools of different sizes.
+ * The speedup by core count is the ratio of the sequential score to the parallel score for each pool size.
+ * Run with: mvn -Pbenchmark -DskipTests verify -Djmh.args="AggregationBenchmark -rf json -rff target/jmh-result.json"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class AggregationBenchmark {
+
+    @Param({"1000000", "5000000"})
+    public int records;
+
+    @Param({"500"})
+    public int users;
+
+    @Param({"12"})
+    public int months;
+
+    @Param({"1", "2", "4", "8"})
+    public int cores;
+
+    private List<Task> tasks;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tasks = SyntheticTasks.generate(records, users, months);
+        pool = new ForkJoinPool(cores);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Single-threaded baseline: one pass with a HashMap lookup per record.
+     */
+    @Benchmark
+    public Map<String, List<String>> sequential() {
+        Map<String, List<String>> byUser = new HashMap<>();
+        for (Task task : tasks) {
+            byUser.computeIfAbsent(task.user(), user -> new ArrayList<>()).add(UserTask.formatWithDate(task));
+        }
+        return byUser;
+    }
+
+    /**
+     * Parallel grouping running in a pool with the given number of worker threads.
+     */
+    @Benchmark
+    public Map<String, List<String>> parallel() throws ExecutionException, InterruptedException {
+        return pool.submit(() -> UserTask.groupByUser(tasks)).get();
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.taskapp.benchmark;
+
+import com.example.taskapp.TaskappApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the whole application over HTTP, comparing the Tomcat worker pool with virtual threads.
+ * Every invocation opens a burst of concurrent connections that each complete a task for one of 50 users,
+ * which blocks on the journal fsync. The score is the time until the whole burst is answered, the auxiliary counters show
+ * how many requests were served and how many failed or timed out.
+ * Run with: mvn -Pbenchmark -DskipTests verify -Djmh.args="ConnectorLoadBenchmark -rf json -rff target/jmh-result.json"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class ConnectorLoadBenchmark {
+
+    private static final String PASSWORD = "load1";
+    private static final int USERS = 50;
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    @Param({"200", "2000"})
+    public int connections;
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private ExecutorService clients;
+    private URI complete;
+    private final List<String> sessions = new ArrayList<>();
+
+    /**
+     * Requests served and failed during one iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Requests {
+        public long served;
+        public long failed;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("taskapp-load");
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < USERS; i++) {
+            lines.append(SyntheticTasks.user(i)).append(',').append(PASSWORD).append('\n');
+        }
+        Path users = Files.writeString(directory.resolve("users.txt"), lines);
+        context = new SpringApplicationBuilder(TaskappApplication.class)
+                .properties("server.port=0",
+                        "server.address=127.0.0.1",
+                        "taskapp.virtual-threads.enabled=" + virtualThreads,
+                        "taskapp.storage.directory=" + directory.resolve("tasks"),
+                        "taskapp.storage.write-mode=journal",
+                        "taskapp.users.file=" + users,
+                        "taskapp.users.hash-iterations=1000")
+                .run();
+        Files.createDirectories(directory.resolve("tasks"));
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        URI base = URI.create("http://127.0.0.1:" + port);
+        complete = base.resolve("/api/complete");
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        clients = Executors.newVirtualThreadPerTaskExecutor();
+        for (int i = 0; i < USERS; i++) {
+            HttpResponse<Void> login = client.send(form(base.resolve("/api/login"), "username=" + SyntheticTasks.user(i) + "&password=" + PASSWORD),
+                    HttpResponse.BodyHandlers.discarding());
+            sessions.add(login.headers().firstValue("Set-Cookie").orElseThrow().split(";")[0]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        clients.shutdownNow();
+        context.close();
+        SyntheticTasks.delete(directory);
+    }
+
+    private static HttpRequest form(URI uri, String body) {
+        return formBuilder(uri, body).build();
+    }
+
+    private static HttpRequest.Builder formBuilder(URI uri, String body) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    /**
+     * Sends a burst of concurrent completions, spread over the logged-in users, and waits until all of them are answered.
+     */
+    @Benchmark
+    public void burst(Requests requests) throws InterruptedException {
+        List<Future<HttpResponse<Void>>> responses = new ArrayList<>(connections);
+        for (int i = 0; i < connections; i++) {
+            HttpRequest request = formBuilder(complete, "task=Pr%C3%A1dlo").header("Cookie", sessions.get(i % USERS)).build();
+            responses.add(clients.submit(() -> client.send(request, HttpResponse.BodyHandlers.discarding())));
+        }
+        for (Future<HttpResponse<Void>> response : responses) {
+            try {
+                if (response.get().statusCode() == 200) {
+                    requests.served++;
+                } else {
+                    requests.failed++;
+                }
+            } catch (Exception e) {
+                requests.failed++;
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.taskapp.benchmark;
+
+import com.example.taskapp.auth.CredentialStore;
+import com.example.taskapp.auth.CurrentUserArgumentResolver;
+import com.example.taskapp.auth.LoginSessions;
+import com.example.taskapp.catalog.TaskCatalog;
+import com.example.taskapp.controller.MainController;
+import com.example.taskapp.events.TaskEventHub;
+import com.example.taskapp.storage.JsonTaskRepository;
+import com.example.taskapp.storage.TaskStats;
+import com.example.taskapp.storage.UserTask;
+import com.example.taskapp.tenant.Tenants;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the MainController endpoints through MockMvc, including JSON serialization of the responses.
+ * Run with: mvn -Pbenchmark -DskipTests verify -Djmh.args="MainControllerBenchmark -rf json -rff target/jmh-result.json"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class MainControllerBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int records;
+
+    @Param({"50"})
+    public int users;
+
+    private Path directory;
+    private MockMvc mockMvc;
+    private MockHttpSession session;
+    private CredentialStore credentials;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("taskapp-bench");
+        SyntheticTasks.writeCurrentMonth(directory, records, users);
+        JsonTaskRepository repository = new JsonTaskRepository(directory.toString(), "snapshot", Long.MAX_VALUE);
+        UserTask userTask = new UserTask(repository);
+        TaskCatalog catalog = new TaskCatalog("");
+        catalog.reload();
+        Path users = directory.resolve("users.txt");
+        Files.writeString(users, SyntheticTasks.user(0) + ",heslo\n");
+        credentials = new CredentialStore(users.toString(), 1);
+        credentials.start();
+        Tenants tenants = new Tenants(repository, userTask, new TaskStats(repository),
+                new TaskEventHub(1, 0, 0), credentials);
+        mockMvc = MockMvcBuilders.standaloneSetup(new MainController(tenants, new ObjectMapper(), catalog, false))
+                .setCustomArgumentResolvers(new CurrentUserArgumentResolver(new LoginSessions("session", "", 0), credentials))
+                .build();
+        session = new MockHttpSession();
+        session.setAttribute("user", SyntheticTasks.user(0));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        credentials.stop();
+        SyntheticTasks.delete(directory);
+    }
+
+    @Benchmark
+    public MvcResult tasks() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks").session(session)).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult profile() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.get("/api/profile").session(session)).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult profileAllTasks() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.get("/api/profile/all-tasks").session(session)).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult allProfiles() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.get("/api/all-profiles").session(session)).andReturn();
+    }
+
+    /**
+     * Completion followed by undo, so the month keeps its size between invocations.
+     */
+    @Benchmark
+    public MvcResult completeAndUndo() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/complete").param("task", "Prádlo").session(session));
+        return mockMvc.perform(MockMvcRequestBuilders.post("/api/undo-last").session(session)).andReturn();
+    }
+}
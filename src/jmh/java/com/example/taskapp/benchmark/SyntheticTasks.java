@@ -0,0 +1,97 @@
+package com.example.taskapp.benchmark;
+
+import com.example.taskapp.storage.Task;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Generates synthetic monthly task files for the benchmarks.
+ * Records are spread over many users and over the days of the month up to today,
+ * in the same pretty-printed format as the files written by the application.
+ */
+final class SyntheticTasks {
+
+    static final List<String> TASKS = List.of("Udělat myčku", "Prádlo", "Vynést koš", "Umýt zem", "Jít se psem");
+    private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private SyntheticTasks() {
+    }
+
+    /**
+     * @param i Index of the user
+     * @return Email of the i-th synthetic user
+     */
+    static String user(int i) {
+        return "user" + i + "@bench.cz";
+    }
+
+    /**
+     * Writes the current month's task file with the given number of records.
+     * @param directory Storage directory
+     * @param records Number of records
+     * @param users Number of distinct users
+     */
+    static void writeCurrentMonth(Path directory, int records, int users) throws IOException {
+        Files.createDirectories(directory);
+        LocalDate today = LocalDate.now();
+        YearMonth month = YearMonth.from(today);
+        Path file = directory.resolve("tasks_" + MONTH_FORMATTER.format(month) + ".json");
+        Random random = new Random(42);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("[");
+            for (int i = 0; i < records; i++) {
+                LocalDate date = month.atDay(1 + random.nextInt(today.getDayOfMonth()));
+                writer.write(i == 0 ? "\n" : ",\n");
+                writer.write("  {\n    \"date\": \"" + date + "\",\n    \"task\": \"" + TASKS.get(random.nextInt(TASKS.size()))
+                        + "\",\n    \"user\": \"" + user(random.nextInt(users)) + "\"\n  }");
+            }
+            writer.write("\n]");
+        }
+    }
+
+    /**
+     * Generates tasks in memory, spread over consecutive months ending with the current one.
+     * @param records Number of records
+     * @param users Number of distinct users
+     * @param months Number of months
+     * @return Tasks ordered by month
+     */
+    static List<Task> generate(int records, int users, int months) {
+        Random random = new Random(42);
+        YearMonth first = YearMonth.now().minusMonths(months - 1);
+        List<Task> tasks = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            YearMonth month = first.plusMonths((long) i * months / records);
+            tasks.add(new Task(user(random.nextInt(users)), month.atDay(1 + random.nextInt(28)),
+                    TASKS.get(random.nextInt(TASKS.size()))));
+        }
+        return tasks;
+    }
+
+    /**
+     * Deletes a storage directory created for a benchmark.
+     * @param directory Directory to delete
+     */
+    static void delete(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.taskapp.benchmark;
+
+import com.example.taskapp.storage.JsonTaskRepository;
+import com.example.taskapp.storage.UserTask;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the public UserTask methods on synthetic monthly files of growing size.
+ * Run with: mvn -Pbenchmark -DskipTests verify -Djmh.args="UserTaskBenchmark -rf json -rff target/jmh-result.json"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class UserTaskBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int records;
+
+    @Param({"50"})
+    public int users;
+
+    @Param({"snapshot", "journal"})
+    public String writeMode;
+
+    private Path directory;
+    private UserTask userTask;
+    private String user;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("taskapp-bench");
+        SyntheticTasks.writeCurrentMonth(directory, records, users);
+        userTask = new UserTask(new JsonTaskRepository(directory.toString(), writeMode, Long.MAX_VALUE));
+        user = SyntheticTasks.user(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyntheticTasks.delete(directory);
+    }
+
+    /**
+     * Cold read of the month: a fresh repository parses the monthly file and builds its index.
+     */
+    @Benchmark
+    public Map<String, List<String>> loadTasks() {
+        return new UserTask(new JsonTaskRepository(directory.toString(), writeMode, Long.MAX_VALUE)).getAllUserTasks();
+    }
+
+    @Benchmark
+    public void addTask() {
+        userTask.addTask(user, "Prádlo");
+    }
+
+    /**
+     * Completion followed by undo, so the month keeps its size between invocations.
+     */
+    @Benchmark
+    public boolean addAndRemoveLastTask() {
+        userTask.addTask(user, "Umýt zem");
+        return userTask.removeLastTask(user);
+    }
+
+    @Benchmark
+    public List<String> getTasksForToday() {
+        return userTask.getTasksForToday(user);
+    }
+
+    @Benchmark
+    public List<String> getAllTasksForUser() {
+        return userTask.getAllTasksForUser(user);
+    }
+
+    @Benchmark
+    public Map<String, List<String>> getAllUserTasks() {
+        return userTask.getAllUserTasks();
+    }
+}
@@ -1,23 +1,108 @@
 package com.example.taskapp;
 
+import com.example.taskapp.auth.CredentialStore;
+import com.example.taskapp.storage.TaskTransfer;
+import com.example.taskapp.tenant.Tenants;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Main application class to run the code.
  * @SpringBootApplication enables auto-configuration, component scanning,
  * and configuration properties for the entire application.
+ * @EnableScheduling runs background jobs such as journal compaction.
+ * Started with "export" or "import" as the first argument, the application transfers task history
+ * to or from a file without starting the web server, see {@link #runTransfer(String[])}.
  */
 @SpringBootApplication
+@EnableScheduling
 public class TaskappApplication {
 
+	private static final String USAGE = "Usage: export|import --file=<path> [--format=ndjson|csv]"
+			+ " [--from=yyyy-MM-dd] [--to=yyyy-MM-dd] [--tenant=<name>] [--<property>=<value>...]";
+
 	/**
 	 * Main method that starts the Spring Boot application.
 	 * @param args Command line arguments passed to the application
 	 */
 	public static void main(String[] args) {
+		if (args.length > 0 && (args[0].equals("export") || args[0].equals("import"))) {
+			System.exit(runTransfer(args));
+		}
 		SpringApplication.run(TaskappApplication.class, args);
 	}
 
+	/**
+	 * Exports or imports task history in the command line mode. The application context is started without
+	 * the web server, with the same configuration as the server, so the storage settings apply as usual.
+	 * Other arguments of the form --name=value are passed to Spring as properties.
+	 * @param args "export" or "import" followed by the options
+	 * @return Exit code: 0 on success, 1 if the transfer failed or rejected records, 2 for invalid arguments
+	 */
+	static int runTransfer(String[] args) {
+		Map<String, String> options = new HashMap<>();
+		for (int i = 1; i < args.length; i++) {
+			int separator = args[i].indexOf('=');
+			if (args[i].startsWith("--") && separator > 2) {
+				options.put(args[i].substring(2, separator), args[i].substring(separator + 1));
+			}
+		}
+		String file = options.get("file");
+		TaskTransfer.Format format;
+		LocalDate from;
+		LocalDate to;
+		try {
+			format = TaskTransfer.Format.of(options.getOrDefault("format", "ndjson"));
+			from = options.containsKey("from") ? LocalDate.parse(options.get("from")) : null;
+			to = options.containsKey("to") ? LocalDate.parse(options.get("to")) : null;
+		} catch (RuntimeException e) {
+			System.err.println(USAGE);
+			return 2;
+		}
+		String tenantName = options.getOrDefault("tenant", CredentialStore.DEFAULT_TENANT);
+		if (file == null || file.isBlank() || !CredentialStore.isValidTenant(tenantName)) {
+			System.err.println(USAGE);
+			return 2;
+		}
+		SpringApplication application = new SpringApplication(TaskappApplication.class);
+		application.setWebApplicationType(WebApplicationType.NONE);
+		try (ConfigurableApplicationContext context = application.run(args)) {
+			TaskTransfer transfer = context.getBean(TaskTransfer.class);
+			Tenants tenants = context.getBean(Tenants.class);
+			Tenants.Tenant tenant = tenants.forTenant(tenantName);
+			Path path = Paths.get(file);
+			if (args[0].equals("export")) {
+				try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
+					long exported = transfer.export(tenant.tasks(), from, to, format, out);
+					System.out.println("Exported " + exported + " tasks to " + path);
+				}
+				return 0;
+			}
+			TaskTransfer.ImportResult result;
+			try (InputStream in = Files.newInputStream(path)) {
+				result = transfer.importTasks(tenant.tasks(),
+						user -> tenants.isMember(user, tenant.name()), format, in);
+			}
+			System.out.println("Imported " + result.imported() + " tasks, skipped " + result.duplicates()
+					+ " duplicates, rejected " + result.rejected() + " lines");
+			result.errors().forEach(System.err::println);
+			return result.rejected() == 0 ? 0 : 1;
+		} catch (IOException | RuntimeException e) {
+			System.err.println("Transfer failed: " + e.getMessage());
+			return 1;
+		}
+	}
+
 	//http://localhost:8080/login.html - odkaz na spusteni
-}
\ No newline at end of file
+}
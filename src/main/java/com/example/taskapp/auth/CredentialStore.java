@@ -0,0 +1,268 @@
+package com.example.taskapp.auth;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Store of user credentials loaded from users.txt.
+ * Each line contains email,password[,tenant] where the password is either cleartext (hashed when the file is loaded)
+ * or a salted hash in the format {pbkdf2}iterations:salt:hash with Base64 salt and hash.
+ * The optional tenant names the household the user belongs to; users of one tenant only see each other's tasks.
+ * Users without a tenant belong to the default tenant, whose tasks are stored directly in the tasks directory.
+ * Only salted PBKDF2 hashes are kept in memory, in an immutable map that is swapped atomically on reload.
+ * If taskapp.users.file points to a file on disk, the file is watched and reloaded on change without restart,
+ * otherwise users.txt is read once from the classpath.
+ */
+@Component
+public class CredentialStore {
+
+    private static final String HASH_PREFIX = "{pbkdf2}";
+    private static final String HASH_ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final Pattern TENANT_NAME = Pattern.compile("[a-z0-9_-]{1,64}");
+
+    /**
+     * Tenant of users without a tenant column and of unknown users.
+     */
+    public static final String DEFAULT_TENANT = "";
+
+    private final String usersFile;
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Salted hash of one user's password and the user's tenant.
+     */
+    private record Credential(byte[] salt, int iterations, byte[] hash, String tenant) {
+    }
+
+    private volatile Map<String, Credential> credentials = Map.of();
+    private final Credential dummy;
+
+    /**
+     * Cache of successful verifications: user email -> SHA-256 of salt and the verified password.
+     * Repeated logins with the same password skip the slow PBKDF2 computation; failures are never cached.
+     */
+    private final Map<String, byte[]> verified = new ConcurrentHashMap<>();
+
+    private WatchService watchService;
+
+    /**
+     * @param usersFile Path of the users file on disk, empty to read users.txt from the classpath
+     * @param iterations PBKDF2 iterations used for passwords stored in cleartext
+     */
+    public CredentialStore(@Value("${taskapp.users.file:}") String usersFile,
+                           @Value("${taskapp.users.hash-iterations:100000}") int iterations) {
+        this.usersFile = usersFile;
+        this.iterations = iterations;
+        this.dummy = hashPassword("dummy-password", DEFAULT_TENANT);
+    }
+
+    /**
+     * Loads the users and starts watching the users file if one is configured.
+     */
+    @PostConstruct
+    public void start() {
+        reload();
+        if (!usersFile.isBlank()) {
+            startWatching(Paths.get(usersFile).toAbsolutePath());
+        }
+    }
+
+    /**
+     * Verifies a password in constant time with respect to its content.
+     * Unknown users are verified against a dummy hash, so they take as long as known ones.
+     * @param username User's email address
+     * @param password Password to verify
+     * @return true if the password matches the stored hash
+     */
+    public boolean verify(String username, String password) {
+        Credential credential = credentials.get(username);
+        if (credential == null) {
+            MessageDigest.isEqual(pbkdf2(password, dummy.salt(), dummy.iterations()), dummy.hash());
+            return false;
+        }
+        byte[] digest = sha256(credential.salt(), password);
+        byte[] cached = verified.get(username);
+        if (cached != null && MessageDigest.isEqual(cached, digest)) {
+            return true;
+        }
+        boolean valid = MessageDigest.isEqual(pbkdf2(password, credential.salt(), credential.iterations()), credential.hash());
+        if (valid) {
+            verified.put(username, digest);
+        }
+        return valid;
+    }
+
+    /**
+     * @param username User's email address
+     * @return true if the user is listed in the users file
+     */
+    public boolean exists(String username) {
+        return username != null && credentials.containsKey(username);
+    }
+
+    /**
+     * @param username User's email address
+     * @return Tenant of the user, {@link #DEFAULT_TENANT} for users without a tenant and unknown users
+     */
+    public String tenantOf(String username) {
+        Credential credential = username != null ? credentials.get(username) : null;
+        return credential != null ? credential.tenant() : DEFAULT_TENANT;
+    }
+
+    /**
+     * @param tenant Tenant name
+     * @return true for the default tenant and names of lower-case letters, digits, '-' and '_', at most 64 characters
+     */
+    public static boolean isValidTenant(String tenant) {
+        return DEFAULT_TENANT.equals(tenant) || TENANT_NAME.matcher(tenant).matches();
+    }
+
+    /**
+     * Reloads all users from the users file and atomically replaces the current credentials.
+     * Cached verifications are dropped, so changed passwords take effect immediately.
+     */
+    public void reload() {
+        Map<String, Credential> loaded = new HashMap<>();
+        try (BufferedReader br = openUsers()) {
+            if (br == null) {
+                System.err.println("users.txt file not found");
+                return;
+            }
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] parts = line.split(",");
+                if (parts.length == 2 || parts.length == 3) {
+                    String tenant = parts.length == 3 ? parts[2].trim() : DEFAULT_TENANT;
+                    if (!isValidTenant(tenant)) {
+                        System.err.println("Invalid tenant in file: " + line);
+                        continue;
+                    }
+                    loaded.put(parts[0].trim(), parseCredential(parts[1].trim(), tenant));
+                } else if (!line.isBlank()) {
+                    System.err.println("Invalid line in file: " + line);
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error reading users file: " + e.getMessage());
+            return;
+        }
+        credentials = Map.copyOf(loaded);
+        verified.clear();
+    }
+
+    private BufferedReader openUsers() throws IOException {
+        if (!usersFile.isBlank()) {
+            return Files.newBufferedReader(Paths.get(usersFile), StandardCharsets.UTF_8);
+        }
+        InputStream inputStream = getClass().getClassLoader().getResourceAsStream("users.txt");
+        return inputStream != null ? new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)) : null;
+    }
+
+    private Credential parseCredential(String password, String tenant) {
+        if (!password.startsWith(HASH_PREFIX)) {
+            return hashPassword(password, tenant);
+        }
+        String[] parts = password.substring(HASH_PREFIX.length()).split(":");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Invalid password hash format");
+        }
+        Base64.Decoder decoder = Base64.getDecoder();
+        return new Credential(decoder.decode(parts[1]), Integer.parseInt(parts[0]), decoder.decode(parts[2]), tenant);
+    }
+
+    private Credential hashPassword(String password, String tenant) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        return new Credential(salt, iterations, pbkdf2(password, salt, iterations), tenant);
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        try {
+            PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+            return SecretKeyFactory.getInstance(HASH_ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " is not available", e);
+        }
+    }
+
+    private static byte[] sha256(byte[] salt, String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt);
+            return digest.digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Starts a daemon thread reloading the users whenever the users file is created or modified.
+     * @param file Absolute path of the users file
+     */
+    private void startWatching(Path file) {
+        try {
+            watchService = file.getFileSystem().newWatchService();
+            file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            System.err.println("Failed to watch users file: " + e.getMessage());
+            return;
+        }
+        Thread watcher = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watchService.take();
+                    boolean changed = false;
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (file.getFileName().equals(event.context())) {
+                            changed = true;
+                        }
+                    }
+                    if (changed) {
+                        reload();
+                    }
+                    if (!key.reset()) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // store is shutting down
+            }
+        }, "users-file-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Stops watching the users file.
+     */
+    @PreDestroy
+    public void stop() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close users file watcher: " + e.getMessage());
+            }
+        }
+    }
+}
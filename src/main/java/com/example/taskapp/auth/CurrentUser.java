@@ -0,0 +1,15 @@
+package com.example.taskapp.auth;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a String handler parameter that receives the email of the logged-in user, or null if not authenticated.
+ * Resolved by {@link CurrentUserArgumentResolver} in both session and token mode.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CurrentUser {
+}
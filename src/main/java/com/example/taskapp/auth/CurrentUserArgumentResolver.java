@@ -0,0 +1,44 @@
+package com.example.taskapp.auth;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Resolves {@link CurrentUser} parameters through {@link LoginSessions},
+ * so the handlers don't depend on how the login is stored.
+ * A session or token of a user who has since been removed from the users file resolves to null,
+ * so such a login is treated as not authenticated instead of falling into the default tenant.
+ */
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final LoginSessions loginSessions;
+    private final CredentialStore credentials;
+
+    /**
+     * @param loginSessions Login state in session or token mode
+     * @param credentials Users currently listed in the users file
+     */
+    public CurrentUserArgumentResolver(LoginSessions loginSessions, CredentialStore credentials) {
+        this.loginSessions = loginSessions;
+        this.credentials = credentials;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentUser.class) && parameter.getParameterType() == String.class;
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        String user = loginSessions.currentUser(webRequest.getNativeRequest(HttpServletRequest.class));
+        return credentials.exists(user) ? user : null;
+    }
+}
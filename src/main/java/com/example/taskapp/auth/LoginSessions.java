@@ -0,0 +1,177 @@
+package com.example.taskapp.auth;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Keeps track of who is logged in, selected by the property taskapp.auth.mode.
+ * "session" (default) stores the user in the servlet HttpSession.
+ * "token" keeps no server-side state: the user is stored in a cookie signed with HMAC-SHA256,
+ * which every instance sharing taskapp.auth.token-secret can verify, so no sticky sessions or session replication are needed.
+ * The key is decoded once and a Mac is kept per thread, so verifying a token costs one HMAC computation.
+ * A token stays valid until it expires, logout only removes the cookie from the browser.
+ */
+@Component
+public class LoginSessions {
+
+    static final String MODE_TOKEN = "token";
+    static final String COOKIE_NAME = "TASKAPP_AUTH";
+    private static final String SESSION_ATTRIBUTE = "user";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final boolean tokenMode;
+    private final long tokenTtlSeconds;
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+
+    /**
+     * @param mode "session" (default) or "token"
+     * @param tokenSecret Base64 encoded HMAC key shared by all instances, empty to generate a random key per process
+     * @param tokenTtlSeconds Lifetime of a token in seconds
+     */
+    public LoginSessions(@Value("${taskapp.auth.mode:session}") String mode,
+                         @Value("${taskapp.auth.token-secret:}") String tokenSecret,
+                         @Value("${taskapp.auth.token-ttl-seconds:604800}") long tokenTtlSeconds) {
+        this.tokenMode = MODE_TOKEN.equalsIgnoreCase(mode);
+        this.tokenTtlSeconds = tokenTtlSeconds;
+        byte[] secret;
+        if (tokenSecret.isBlank()) {
+            secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            if (tokenMode) {
+                System.err.println("No taskapp.auth.token-secret configured, tokens are valid only until restart and only on this instance");
+            }
+        } else {
+            secret = Base64.getDecoder().decode(tokenSecret);
+        }
+        this.key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC not available", e);
+            }
+        });
+    }
+
+    /**
+     * Records a successful login.
+     * @param user Email address of the user
+     * @param request Current request
+     * @param response Current response, receives the token cookie in token mode
+     */
+    public void login(String user, HttpServletRequest request, HttpServletResponse response) {
+        if (tokenMode) {
+            setCookie(request, response, createToken(user, Instant.now().getEpochSecond() + tokenTtlSeconds), tokenTtlSeconds);
+        } else {
+            request.getSession().setAttribute(SESSION_ATTRIBUTE, user);
+        }
+    }
+
+    /**
+     * Logs the current user out.
+     * @param request Current request
+     * @param response Current response, the token cookie is removed in token mode
+     */
+    public void logout(HttpServletRequest request, HttpServletResponse response) {
+        if (tokenMode) {
+            setCookie(request, response, "", 0);
+            return;
+        }
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            session.invalidate();
+        }
+    }
+
+    /**
+     * Resolves the logged-in user without creating a session.
+     * @param request Current request
+     * @return Email address of the logged-in user, or null if not authenticated
+     */
+    public String currentUser(HttpServletRequest request) {
+        if (!tokenMode) {
+            HttpSession session = request.getSession(false);
+            return session != null ? (String) session.getAttribute(SESSION_ATTRIBUTE) : null;
+        }
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                return verifyToken(cookie.getValue(), Instant.now().getEpochSecond());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates a signed token in the format base64(user).expiry.base64(hmac).
+     * @param user Email address of the user
+     * @param expiresAt Expiry in epoch seconds
+     * @return Token value
+     */
+    String createToken(String user, long expiresAt) {
+        String payload = ENCODER.encodeToString(user.getBytes(StandardCharsets.UTF_8)) + "." + expiresAt;
+        return payload + "." + ENCODER.encodeToString(sign(payload));
+    }
+
+    /**
+     * Verifies the signature and the expiry of a token.
+     * @param token Token value
+     * @param now Current time in epoch seconds
+     * @return Email address of the user, or null if the token is invalid or expired
+     */
+    String verifyToken(String token, long now) {
+        int signatureStart = token.lastIndexOf('.');
+        int expiryStart = signatureStart > 0 ? token.lastIndexOf('.', signatureStart - 1) : -1;
+        if (expiryStart <= 0) {
+            return null;
+        }
+        String payload = token.substring(0, signatureStart);
+        try {
+            if (!MessageDigest.isEqual(sign(payload), DECODER.decode(token.substring(signatureStart + 1)))
+                    || Long.parseLong(token.substring(expiryStart + 1, signatureStart)) < now) {
+                return null;
+            }
+            return new String(DECODER.decode(token.substring(0, expiryStart)), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private byte[] sign(String payload) {
+        return macs.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void setCookie(HttpServletRequest request, HttpServletResponse response, String value, long maxAgeSeconds) {
+        response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(COOKIE_NAME, value)
+                .path("/")
+                .httpOnly(true)
+                .secure(request.isSecure())
+                .sameSite("Lax")
+                .maxAge(maxAgeSeconds)
+                .build()
+                .toString());
+    }
+}
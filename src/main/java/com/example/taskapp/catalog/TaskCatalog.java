@@ -0,0 +1,202 @@
+package com.example.taskapp.catalog;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Catalog of the tasks users can complete, loaded from catalog.txt.
+ * Each line contains id,name or id,name,retired. IDs are stable integers that are never reused,
+ * retired tasks can no longer be completed but their ID still resolves, so older records stay readable.
+ * Task names are interned by the catalog, lookups by ID are array accesses.
+ * If taskapp.catalog.file points to a file on disk, the file is watched and reloaded on change without a redeploy,
+ * otherwise catalog.txt is read once from the classpath.
+ */
+@Component
+public class TaskCatalog {
+
+    private static final String RETIRED = "retired";
+
+    /**
+     * One catalog task.
+     * @param id Stable ID of the task
+     * @param name Name shown to users and stored with completions
+     * @param active false for retired tasks
+     */
+    public record Entry(int id, String name, boolean active) {
+    }
+
+    /**
+     * Immutable view of the loaded catalog, swapped atomically on reload.
+     */
+    private record Snapshot(Entry[] byId, Map<String, Entry> byName, List<Entry> active) {
+    }
+
+    private final String catalogFile;
+    private volatile Snapshot snapshot = new Snapshot(new Entry[0], Map.of(), List.of());
+    private WatchService watchService;
+
+    /**
+     * @param catalogFile Path of the catalog file on disk, empty to read catalog.txt from the classpath
+     */
+    public TaskCatalog(@Value("${taskapp.catalog.file:}") String catalogFile) {
+        this.catalogFile = catalogFile;
+    }
+
+    /**
+     * Loads the catalog and starts watching the catalog file if one is configured.
+     */
+    @PostConstruct
+    public void start() {
+        reload();
+        if (!catalogFile.isBlank()) {
+            startWatching(Paths.get(catalogFile).toAbsolutePath());
+        }
+    }
+
+    /**
+     * @return Active tasks in ID order
+     */
+    public List<Entry> active() {
+        return snapshot.active();
+    }
+
+    /**
+     * @return Names of the active tasks in ID order
+     */
+    public List<String> activeNames() {
+        List<String> names = new ArrayList<>();
+        for (Entry entry : snapshot.active()) {
+            names.add(entry.name());
+        }
+        return names;
+    }
+
+    /**
+     * @param id Task ID
+     * @return The task, or null if the ID is unknown
+     */
+    public Entry byId(int id) {
+        Entry[] byId = snapshot.byId();
+        return id >= 0 && id < byId.length ? byId[id] : null;
+    }
+
+    /**
+     * @param name Task name
+     * @return The task, or null if the name is not in the catalog
+     */
+    public Entry byName(String name) {
+        return name != null ? snapshot.byName().get(name) : null;
+    }
+
+    /**
+     * Reloads the catalog file and atomically replaces the current catalog.
+     * A file with errors is rejected as a whole and the previous catalog stays in place.
+     */
+    public void reload() {
+        TreeMap<Integer, Entry> entries = new TreeMap<>();
+        Map<String, Entry> byName = new HashMap<>();
+        try (BufferedReader br = openCatalog()) {
+            if (br == null) {
+                System.err.println("catalog.txt file not found");
+                return;
+            }
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split(",");
+                if (parts.length < 2 || parts.length > 3 || (parts.length == 3 && !RETIRED.equals(parts[2].trim()))) {
+                    throw new IllegalArgumentException("Invalid line in catalog: " + line);
+                }
+                int id = Integer.parseInt(parts[0].trim());
+                Entry entry = new Entry(id, parts[1].trim().intern(), parts.length == 2);
+                if (id < 0 || entries.put(id, entry) != null || byName.put(entry.name(), entry) != null) {
+                    throw new IllegalArgumentException("Duplicate or negative task in catalog: " + line);
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error reading catalog file: " + e.getMessage());
+            return;
+        }
+        int size = entries.isEmpty() ? 0 : entries.lastKey() + 1;
+        Entry[] byId = new Entry[size];
+        List<Entry> active = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            byId[entry.id()] = entry;
+            if (entry.active()) {
+                active.add(entry);
+            }
+        }
+        snapshot = new Snapshot(byId, Map.copyOf(byName), List.copyOf(active));
+    }
+
+    private BufferedReader openCatalog() throws IOException {
+        if (!catalogFile.isBlank()) {
+            return Files.newBufferedReader(Paths.get(catalogFile), StandardCharsets.UTF_8);
+        }
+        InputStream inputStream = getClass().getClassLoader().getResourceAsStream("catalog.txt");
+        return inputStream != null ? new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)) : null;
+    }
+
+    /**
+     * Starts a daemon thread reloading the catalog whenever the catalog file is created or modified.
+     * @param file Absolute path of the catalog file
+     */
+    private void startWatching(Path file) {
+        try {
+            watchService = file.getFileSystem().newWatchService();
+            file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            System.err.println("Failed to watch catalog file: " + e.getMessage());
+            return;
+        }
+        Thread watcher = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watchService.take();
+                    boolean changed = false;
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (file.getFileName().equals(event.context())) {
+                            changed = true;
+                        }
+                    }
+                    if (changed) {
+                        reload();
+                    }
+                    if (!key.reset()) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // catalog is shutting down
+            }
+        }, "catalog-file-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Stops watching the catalog file.
+     */
+    @PreDestroy
+    public void stop() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close catalog file watcher: " + e.getMessage());
+            }
+        }
+    }
+}
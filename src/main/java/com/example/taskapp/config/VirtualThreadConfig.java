@@ -0,0 +1,40 @@
+package com.example.taskapp.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Opt-in execution of requests on virtual threads, enabled by taskapp.virtual-threads.enabled=true.
+ * Tomcat hands every request to a new virtual thread instead of its fixed worker pool, so requests blocked
+ * on storage I/O don't hold platform threads and connection spikes don't require sizing the pool by hand.
+ * The number of accepted connections is still limited by server.tomcat.max-connections.
+ */
+@Configuration
+@ConditionalOnProperty(name = "taskapp.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    /**
+     * Replaces the Tomcat worker pool with a virtual-thread-per-request executor.
+     * @return Customizer of the Tomcat protocol handler
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * Runs Spring's asynchronous work (e.g. async MVC requests) on virtual threads as well.
+     * @return Executor starting a virtual thread per task
+     */
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.taskapp.controller;
+
+import com.example.taskapp.auth.CurrentUser;
+import com.example.taskapp.storage.TaskTransfer;
+import com.example.taskapp.tenant.Tenants;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * REST Controller for moving task history in and out of the application in bulk, see {@link TaskTransfer}.
+ * Only the users listed in taskapp.admin.users may use it, and only on the storage of their own tenant.
+ */
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    private final TaskTransfer transfer;
+    private final Tenants tenants;
+    private final Set<String> admins;
+
+    /**
+     * Constructor-based dependency injection of the transfer service and the tenants.
+     * @param transfer Streaming export and import of tasks
+     * @param tenants Tenants with their task services
+     * @param admins Comma separated emails of the users allowed to export and import
+     */
+    public AdminController(TaskTransfer transfer, Tenants tenants, @Value("${taskapp.admin.users:}") String admins) {
+        this.transfer = transfer;
+        this.tenants = tenants;
+        this.admins = Arrays.stream(admins.split(","))
+                .map(String::trim)
+                .filter(admin -> !admin.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Streams all tasks of the caller's tenant in a date range as a file download.
+     * @param format "ndjson" (default) or "csv"
+     * @param from First day (yyyy-MM-dd), all history if missing
+     * @param to Last day (yyyy-MM-dd), all history if missing
+     * @param user Email of the logged-in user, null if not authenticated
+     * @param response HTTP response the records are written to, 400 Bad Request for an unknown format,
+     *                 401 Unauthorized if not authenticated or 403 Forbidden for users who aren't admins
+     */
+    @GetMapping("/export")
+    public void export(@RequestParam(defaultValue = "ndjson") String format,
+                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                       @CurrentUser String user, HttpServletResponse response) throws IOException {
+        HttpStatus denied = checkAdmin(user);
+        if (denied != null) {
+            response.setStatus(denied.value());
+            return;
+        }
+        TaskTransfer.Format outputFormat;
+        try {
+            outputFormat = TaskTransfer.Format.of(format);
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+        boolean csv = outputFormat == TaskTransfer.Format.CSV;
+        response.setContentType(csv ? "text/csv;charset=UTF-8" : "application/x-ndjson");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"tasks." + (csv ? "csv" : "ndjson") + "\"");
+        transfer.export(tenants.forUser(user).tasks(), from, to, outputFormat, response.getOutputStream());
+    }
+
+    /**
+     * Imports tasks from the request body into the storage of the caller's tenant.
+     * Records of unknown users and of users from other tenants are rejected, records that are already stored are skipped.
+     * @param format "ndjson" (default) or "csv"
+     * @param user Email of the logged-in user, null if not authenticated
+     * @param request Request whose body is read line by line
+     * @return ResponseEntity with the numbers of imported, duplicate and rejected records,
+     *         400 Bad Request for an unknown format, 401 Unauthorized if not authenticated
+     *         or 403 Forbidden for users who aren't admins
+     */
+    @PostMapping("/import")
+    public ResponseEntity<TaskTransfer.ImportResult> importTasks(@RequestParam(defaultValue = "ndjson") String format,
+                                                                 @CurrentUser String user,
+                                                                 HttpServletRequest request) throws IOException {
+        HttpStatus denied = checkAdmin(user);
+        if (denied != null) {
+            return ResponseEntity.status(denied).build();
+        }
+        TaskTransfer.Format inputFormat;
+        try {
+            inputFormat = TaskTransfer.Format.of(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        Tenants.Tenant tenant = tenants.forUser(user);
+        return ResponseEntity.ok(transfer.importTasks(tenant.tasks(),
+                imported -> tenants.isMember(imported, tenant.name()), inputFormat, request.getInputStream()));
+    }
+
+    /**
+     * @param user Email of the logged-in user, null if not authenticated
+     * @return Status to answer with, or null if the user is an admin
+     */
+    private HttpStatus checkAdmin(String user) {
+        if (user == null) {
+            return HttpStatus.UNAUTHORIZED;
+        }
+        return admins.contains(user) ? null : HttpStatus.FORBIDDEN;
+    }
+}
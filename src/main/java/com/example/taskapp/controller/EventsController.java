@@ -0,0 +1,53 @@
+package com.example.taskapp.controller;
+
+import com.example.taskapp.auth.CurrentUser;
+import com.example.taskapp.events.TaskEventHub;
+import com.example.taskapp.tenant.Tenants;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+
+/**
+ * REST Controller streaming live task changes to the pages as Server-Sent Events,
+ * so they don't have to poll and reload whole lists to see the completions of other users.
+ */
+@RestController
+@RequestMapping("/api")
+public class EventsController {
+
+    private final TaskEventHub events;
+    private final Tenants tenants;
+
+    /**
+     * Constructor-based dependency injection for the event hub.
+     * @param events Hub distributing task changes to the open streams
+     * @param tenants Tenants of the users
+     */
+    public EventsController(TaskEventHub events, Tenants tenants) {
+        this.events = events;
+        this.tenants = tenants;
+    }
+
+    /**
+     * Opens an event stream for the tasks of the caller's tenant. Every completion is sent as a "completed" event and every undo as a "removed" event,
+     * both with the user, date and task as JSON. A "resync" event asks the page to reload its data
+     * because it could not keep up with the events.
+     * @param user Email of the logged-in user, null if not authenticated
+     * @return ResponseEntity with the event stream, 401 Unauthorized if not authenticated,
+     *         or 503 Service Unavailable if too many streams are open
+     */
+    @GetMapping("/events")
+    public ResponseEntity<SseEmitter> events(@CurrentUser String user) {
+        if (user == null) {
+            return ResponseEntity.status(401).build();
+        }
+        SseEmitter emitter = events.subscribe(tenants.forUser(user).name());
+        if (emitter == null) {
+            return ResponseEntity.status(503).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+}
@@ -1,68 +1,50 @@
 package com.example.taskapp.controller;
 
+import com.example.taskapp.auth.CredentialStore;
+import com.example.taskapp.auth.LoginSessions;
+import io.micrometer.core.instrument.Metrics;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import javax.servlet.http.HttpSession;
-import java.io.*;
-import java.util.Map;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.regex.Pattern;
 import org.springframework.web.bind.annotation.RequestMapping;
-import java.util.HashMap;
 
 /**
  * REST Controller responsible for handling user authentication.
  * Manages login functionality including user validation and session management.
- * User credentials are loaded from a text file (users.txt) in the resources' folder.
+ * User credentials are provided by the {@link CredentialStore}, loaded from users.txt.
+ * The login is kept by {@link LoginSessions}, in the HttpSession or in a signed cookie.
  */
 @RestController
 @RequestMapping("/api")
 public class LoginController {
 
     /**
-     * In-memory storage for user credentials loaded from users.txt file.
-     * Key: username (email), Value: password
+     * Basic email format, compiled once instead of on every login.
      */
-    private final Map<String, String> users = new HashMap<>();
-
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+[@A-Za-z0-9.-]+$");
 
     /**
-     * Constructor that initializes the controller and loads user data from file.
+     * Counter of login attempts tagged by result, exported through Actuator.
      */
-    public LoginController() {
-        loadUsers();
-    }
+    private static final String LOGIN_METRIC = "taskapp.login";
+
+    private final CredentialStore credentialStore;
+    private final LoginSessions loginSessions;
 
     /**
-     * Loads user credentials from the users.txt file in the resources' folder.
-     * Each line in the file should contain: email,password
-     * Invalid lines are logged as errors and skipped.
+     * Constructor-based dependency injection of the credential store and the login state.
+     * @param credentialStore Store verifying user passwords
+     * @param loginSessions Login state in session or token mode
      */
-    private void loadUsers() {
-        try {
-            InputStream inputStream = getClass().getClassLoader().getResourceAsStream("users.txt");
-            if (inputStream == null) {
-                System.err.println("users.txt file not found");
-                return;
-            }
-            try (BufferedReader br = new BufferedReader(new InputStreamReader(inputStream))) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    String[] parts = line.split(",");
-                    if (parts.length == 2) {
-                        String username = parts[0].trim();
-                        String password = parts[1].trim();
-                        users.put(username, password);
-                    } else {
-                        System.err.println("Invalid line in file: " + line);
-                    }
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error reading users.txt file: " + e.getMessage());
-        }
+    public LoginController(CredentialStore credentialStore, LoginSessions loginSessions) {
+        this.credentialStore = credentialStore;
+        this.loginSessions = loginSessions;
     }
 
     /**
@@ -70,44 +52,48 @@ public class LoginController {
      * Validates email format, checks credentials against loaded users, and creates a user session if authentication is successful.
      * @param username User's email address
      * @param password User's password
-     * @param session HTTP session for storing user authentication state
+     * @param request HTTP request whose session stores the login in session mode
+     * @param response HTTP response receiving the signed cookie in token mode
      * @return ResponseEntity with "OK" for successful login,
      *         400 for invalid email format, or 401 for invalid credentials
      */
     @PostMapping("/login")
     public ResponseEntity<String> login(@RequestParam String username,
                                         @RequestParam String password,
-                                        HttpSession session) {
+                                        HttpServletRequest request,
+                                        HttpServletResponse response) {
         if (!isValidEmail(username)) {
+            Metrics.counter(LOGIN_METRIC, "result", "invalid-email").increment();
             return ResponseEntity.badRequest().body("Invalid email format.");
         }
-        String storedPassword = users.get(username);
-        if (storedPassword != null && storedPassword.equals(password)) {
-            session.setAttribute("user", username);
+        if (credentialStore.verify(username, password)) {
+            Metrics.counter(LOGIN_METRIC, "result", "success").increment();
+            loginSessions.login(username, request, response);
             return ResponseEntity.ok("Login successful.");
         } else {
+            Metrics.counter(LOGIN_METRIC, "result", "failure").increment();
             return ResponseEntity.status(401).body("Invalid credentials");
         }
     }
 
     /**
      * Handles user logout requests.
-     * Invalidates the current HTTP session, removing all session data.
-     * @param session HTTP session to be invalidated
+     * Invalidates the current HTTP session, removing all session data, or removes the signed cookie in token mode.
+     * @param request HTTP request whose session is invalidated
+     * @param response HTTP response removing the signed cookie
      */
     @GetMapping("/logout")
-    public void logout(HttpSession session) {
-        session.invalidate();
+    public void logout(HttpServletRequest request, HttpServletResponse response) {
+        loginSessions.logout(request, response);
     }
 
     /**
      * Validates if the provided string is a valid email format.
-     * Uses a basic regex pattern to check email structure.
+     * Uses a basic precompiled regex pattern to check email structure.
      * @param email Email string to validate
      * @return true if email format is valid, false otherwise
      */
     private boolean isValidEmail(String email) {
-        String emailRegex = "^[A-Za-z0-9+_.-]+[@A-Za-z0-9.-]+$";
-        return email.matches(emailRegex);
+        return EMAIL_PATTERN.matcher(email).matches();
     }
 }
@@ -1,78 +1,216 @@
 package com.example.taskapp.controller;
 
+import com.example.taskapp.auth.CurrentUser;
+import com.example.taskapp.catalog.TaskCatalog;
+import com.example.taskapp.storage.Task;
+import com.example.taskapp.storage.TaskPage;
+import com.example.taskapp.storage.TaskQuery;
 import com.example.taskapp.storage.UserTask;
+import com.example.taskapp.tenant.Tenants;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import javax.servlet.http.HttpSession;
+import org.springframework.web.context.request.WebRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * REST Controller responsible for managing the main application functionality.
  * Handles task operations, user profile data, and task completion tracking.
- * All operations require user authentication through HTTP session.
+ * All operations require an authenticated user, resolved by {@link CurrentUser} in session or token mode.
+ * Every request works on the storage of the caller's tenant only, see {@link Tenants}.
+ * The endpoints polled by the pages send ETags derived from the storage versions of {@link UserTask}
+ * and answer conditional GETs with 304 Not Modified without reading or serializing any data.
+ * In a partitioned deployment the versions only count the changes made through one node, so these ETags are not sent.
  */
 @RestController
 @RequestMapping("/api")
 public class MainController {
 
-    private final UserTask taskStorage;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int MAX_HISTORY_DAYS = 366;
+
+    private final Tenants tenants;
+    private final ObjectMapper objectMapper;
+    private final TaskCatalog catalog;
+    private final boolean versionETags;
 
     /**
-     * Constructor-based dependency injection for UserTask service.
-     * @param taskStorage UserTask service for managing task data
+     * Constructor-based dependency injection for the tenants' UserTask services.
+     * @param tenants Tenants with their UserTask services for managing task data
+     * @param objectMapper JSON mapper whose factory is used for streamed responses
+     * @param catalog Catalog of the tasks that can be completed
+     * @param clustered true in a partitioned deployment, disables the ETags derived from storage versions
      */
-    public MainController(UserTask taskStorage) {
-        this.taskStorage = taskStorage;
+    public MainController(Tenants tenants, ObjectMapper objectMapper, TaskCatalog catalog,
+                          @Value("${taskapp.cluster.enabled:false}") boolean clustered) {
+        this.tenants = tenants;
+        this.objectMapper = objectMapper;
+        this.catalog = catalog;
+        this.versionETags = !clustered;
     }
 
 
     /**
-     * Returns a predefined list of available tasks that users can complete.
-     * This is a static list of household/daily tasks.
-     * @return List of available task names
+     * Builds a strong ETag from the given parts.
+     * @param parts Values identifying the version of a response
+     * @return Quoted ETag value
+     */
+    private static String etag(Object... parts) {
+        StringBuilder etag = new StringBuilder("\"");
+        for (Object part : parts) {
+            if (etag.length() > 1) {
+                etag.append('-');
+            }
+            etag.append(part);
+        }
+        return etag.append('"').toString();
+    }
+
+    /**
+     * Returns the list of available tasks that users can complete.
+     * The tasks come from the task catalog, retired tasks are not listed.
+     * @param request Request carrying the If-None-Match header
+     * @return List of available task names, or null after a 304 Not Modified
      */
     @GetMapping("/tasks")
-    public List<String> getTasks() {
-        return List.of("Udělat myčku", "Prádlo", "Vynést koš", "Umýt zem", "Jít se psem");
+    public List<String> getTasks(WebRequest request) {
+        List<String> tasks = catalog.activeNames();
+        if (request.checkNotModified(etag("t", Integer.toHexString(tasks.hashCode())))) {
+            return null;
+        }
+        return tasks;
+    }
+
+    /**
+     * Returns the available tasks together with their stable IDs.
+     * @return List of active catalog entries in ID order
+     */
+    @GetMapping("/tasks/catalog")
+    public List<TaskCatalog.Entry> getCatalog() {
+        return catalog.active();
     }
 
 
     /**
      * Marks a task as completed for the currently logged-in user.
      * The task completion is recorded with the current date.
+     * The task is given either by its name or by its catalog ID and must be an active catalog task.
      * @param task Name of the task to mark as completed
-     * @param session HTTP session containing user authentication information
+     * @param taskId Catalog ID of the task, used instead of the name
+     * @param user Email of the logged-in user, null if not authenticated
+     * @return ResponseEntity with 200 OK, or 400 Bad Request for an unknown or retired task
      */
     @PostMapping("/complete")
-    public void completeTask(@RequestParam String task, HttpSession session) {
-        String user = (String) session.getAttribute("user");
+    public ResponseEntity<Void> completeTask(@RequestParam(required = false) String task,
+                                             @RequestParam(required = false) Integer taskId,
+                                             @CurrentUser String user) {
+        TaskCatalog.Entry entry = taskId != null ? catalog.byId(taskId) : catalog.byName(task);
+        if (entry == null || !entry.active()) {
+            return ResponseEntity.badRequest().build();
+        }
         if (user != null) {
-            taskStorage.addTask(user, task);
+            tenants.forUser(user).tasks().addTask(user, entry.name());
         }
+        return ResponseEntity.ok().build();
+    }
+
+    /**
+     * Marks several tasks as completed in one request, e.g. from a kiosk or an importer.
+     * Entries without a user are recorded for the logged-in user, entries without a date for today.
+     * Other users must be known users of the logged-in user's tenant, and no date may lie in the future.
+     * All entries are persisted together with a single write per month.
+     * @param completions Completed tasks, at most 1000
+     * @param user Email of the logged-in user, null if not authenticated
+     * @return ResponseEntity with the number of stored tasks, 400 Bad Request for an empty,
+     *         too large or invalid batch, a task that is not active in the catalog, an unknown user,
+     *         a user of another tenant or a future date, or 401 Unauthorized if not authenticated
+     */
+    @PostMapping("/complete/batch")
+    public ResponseEntity<Integer> completeTasks(@RequestBody List<Completion> completions, @CurrentUser String user) {
+        if (user == null) {
+            return ResponseEntity.status(401).build();
+        }
+        if (completions.isEmpty() || completions.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        Tenants.Tenant tenant = tenants.forUser(user);
+        LocalDate today = LocalDate.now();
+        List<Task> tasks = new ArrayList<>(completions.size());
+        for (Completion completion : completions) {
+            TaskCatalog.Entry entry = completion == null ? null
+                    : completion.taskId() != null ? catalog.byId(completion.taskId()) : catalog.byName(completion.task());
+            String completedBy = completion != null && completion.user() != null ? completion.user() : user;
+            if (entry == null || !entry.active()
+                    || !completedBy.equals(user) && !tenants.isMember(completedBy, tenant.name())) {
+                return ResponseEntity.badRequest().build();
+            }
+            LocalDate date = completion.date() != null ? completion.date() : today;
+            if (date.isAfter(today)) {
+                return ResponseEntity.badRequest().build();
+            }
+            tasks.add(new Task(completedBy, date, entry.name()));
+        }
+        tenant.tasks().addTasks(tasks);
+        return ResponseEntity.ok(tasks.size());
+    }
+
+    /**
+     * One entry of a batch completion.
+     * @param user Email of the user who completed the task, the logged-in user if missing
+     * @param task Name of the completed task
+     * @param taskId Catalog ID of the completed task, used instead of the name
+     * @param date Day of completion (yyyy-MM-dd), today if missing
+     */
+    public record Completion(String user, String task, Integer taskId, LocalDate date) {
     }
 
     /**
      * Retrieves all tasks completed by the current user today.
-     * @param session HTTP session containing user authentication information
-     * @return List of task names completed today, or empty list if not authenticated
+     * The ETag consists of the day, the user and the user's storage version.
+     * @param user Email of the logged-in user, null if not authenticated
+     * @param request Request carrying the If-None-Match header
+     * @return List of task names completed today, empty list if not authenticated, or null after a 304 Not Modified
      */
     @GetMapping("/profile")
-    public List<String> profileTasks(HttpSession session) {
-        String user = (String) session.getAttribute("user");
-        return user != null ? taskStorage.getTasksForToday(user) : List.of();
+    public List<String> profileTasks(@CurrentUser String user, WebRequest request) {
+        if (user == null) {
+            return List.of();
+        }
+        UserTask taskStorage = tenants.forUser(user).tasks();
+        if (versionETags && request.checkNotModified(etag("p", LocalDate.now(), Integer.toHexString(user.hashCode()), taskStorage.getVersion(user)))) {
+            return null;
+        }
+        return taskStorage.getTasksForToday(user);
     }
 
     /**
      * Returns the email of the currently logged-in user.
      * If no user is authenticated, returns 401 Unauthorized.
-     * @param session HTTP session containing user information
-     * @return ResponseEntity with email or 401 status
+     * @param user Email of the logged-in user, null if not authenticated
+     * @param request Request carrying the If-None-Match header
+     * @return ResponseEntity with email or 401 status, or null after a 304 Not Modified
      */
     @GetMapping("/email")
-    public ResponseEntity<String> getEmail(HttpSession session) {
-        String user = (String) session.getAttribute("user");
+    public ResponseEntity<String> getEmail(@CurrentUser String user, WebRequest request) {
         if (user != null) {
+            if (request.checkNotModified(etag("e", Integer.toHexString(user.hashCode())))) {
+                return null;
+            }
             return ResponseEntity.ok(user);
         } else {
             return ResponseEntity.status(401).body("Not logged in");
@@ -80,48 +218,165 @@ public class MainController {
     }
 
     /**
-     * Retrieves task completion data for all users in the system.
-     * Tasks are returned with completion dates.
-     * @param session HTTP session containing user authentication information
-     * @return ResponseEntity with map or 401 Unauthorized if not authenticated
+     * Retrieves task completion data for all users of the caller's tenant.
+     * Tasks are returned with completion dates, as a JSON object mapping user emails to lists of tasks.
+     * The response is streamed from storage user by user, so memory per request doesn't grow with the number of records.
+     * The ETag consists of the tenant, the month and the tenant's storage version, an unchanged month is answered with 304 Not Modified.
+     * @param user Email of the logged-in user, null if not authenticated
+     * @param request Request carrying the If-None-Match header
+     * @param response HTTP response the JSON is written to, 401 Unauthorized if not authenticated
      */
     @GetMapping("/all-profiles")
-    public ResponseEntity<Map<String, List<String>>> getAllProfiles(HttpSession session) {
-        String user = (String) session.getAttribute("user");
-        if (user != null) {
-            return ResponseEntity.ok(taskStorage.getAllUserTasks());
-        } else {
+    public void getAllProfiles(@CurrentUser String user, WebRequest request, HttpServletResponse response) throws IOException {
+        if (user == null) {
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            return;
+        }
+        Tenants.Tenant tenant = tenants.forUser(user);
+        UserTask taskStorage = tenant.tasks();
+        if (versionETags && request.checkNotModified(etag("a", tenant.name(), YearMonth.now(), taskStorage.getVersion()))) {
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (Stream<Task> tasks = taskStorage.streamAllUserTasks();
+             JsonGenerator json = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            json.writeStartObject();
+            String currentUser = null;
+            Iterator<Task> iterator = tasks.iterator();
+            while (iterator.hasNext()) {
+                Task task = iterator.next();
+                if (!task.user().equals(currentUser)) {
+                    if (currentUser != null) {
+                        json.writeEndArray();
+                    }
+                    currentUser = task.user();
+                    json.writeArrayFieldStart(currentUser);
+                }
+                json.writeString(UserTask.formatWithDate(task));
+            }
+            if (currentUser != null) {
+                json.writeEndArray();
+            }
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Retrieves the completed tasks of all users of the caller's tenant in a date range of up to a year.
+     * The response is built in memory, longer histories are read page by page from /api/history.
+     * @param from First day of the range (yyyy-MM-dd)
+     * @param to Last day of the range (yyyy-MM-dd), defaults to today
+     * @param user Email of the logged-in user, null if not authenticated
+     * @return ResponseEntity with user emails mapped to their tasks with completion dates,
+     *         400 Bad Request if from is after to or the range is longer than 366 days, or 401 Unauthorized if not authenticated
+     */
+    @GetMapping("/all-profiles/history")
+    public ResponseEntity<Map<String, List<String>>> getAllProfilesHistory(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                           @CurrentUser String user) {
+        if (user == null) {
             return ResponseEntity.status(401).build();
         }
+        LocalDate rangeTo = to != null ? to : LocalDate.now();
+        if (from.isAfter(rangeTo) || ChronoUnit.DAYS.between(from, rangeTo) >= MAX_HISTORY_DAYS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(tenants.forUser(user).tasks().getAllUserTasks(from, rangeTo));
     }
 
     /**
      * Retrieves all tasks ever completed by the current user.
-     * Returns tasks with their completion dates for historical view.
-     * @param session HTTP session containing user authentication information
-     * @return List of all completed tasks with completion dates, or empty list if not authenticated
+     * Returns tasks with their completion dates for historical view, streamed to the response as a JSON array.
+     * @param user Email of the logged-in user, null if not authenticated
+     * @param response HTTP response the JSON array is written to, empty array if not authenticated
      */
     @GetMapping("/profile/all-tasks")
-    public List<String> getAllProfileTasks(HttpSession session) {
-        String user = (String) session.getAttribute("user");
-        return user != null ? taskStorage.getAllTasksForUser(user) : List.of();
+    public void getAllProfileTasks(@CurrentUser String user, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (Stream<Task> tasks = user != null ? tenants.forUser(user).tasks().streamAllTasksForUser(user) : Stream.empty();
+             JsonGenerator json = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            json.writeStartArray();
+            Iterator<Task> iterator = tasks.iterator();
+            while (iterator.hasNext()) {
+                json.writeString(UserTask.formatCompleted(iterator.next()));
+            }
+            json.writeEndArray();
+        }
     }
 
 
+    /**
+     * Retrieves completed tasks of the caller's tenant page by page, across monthly boundaries.
+     * Without a range the current month up to today is returned. Only the months inside the range are read.
+     * @param from First day of the range (yyyy-MM-dd), defaults to the first day of the current month
+     * @param to Last day of the range (yyyy-MM-dd), defaults to today
+     * @param user Optional email of the user whose tasks should be returned
+     * @param cursor Cursor of the requested page, as returned in nextCursor of the previous page
+     * @param size Maximum number of tasks per page (1 to 500)
+     * @param currentUser Email of the logged-in user, null if not authenticated
+     * @return ResponseEntity with the page, 400 Bad Request for an invalid range, size or cursor,
+     *         or 401 Unauthorized if not authenticated
+     */
+    @GetMapping("/history")
+    public ResponseEntity<TaskPage> getHistory(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                               @RequestParam(required = false) String user,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "50") int size,
+                                               @CurrentUser String currentUser) {
+        if (currentUser == null) {
+            return ResponseEntity.status(401).build();
+        }
+        LocalDate today = LocalDate.now();
+        LocalDate rangeFrom = from != null ? from : today.withDayOfMonth(1);
+        LocalDate rangeTo = to != null ? to : today;
+        if (rangeFrom.isAfter(rangeTo) || size < 1 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(tenants.forUser(currentUser).tasks().findTasks(new TaskQuery(rangeFrom, rangeTo, user, cursor, size)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Undoes the last completed task for the logged-in user.
      * Returns 400 Bad Request if no user is authenticated or undo fails.
-     * @param session HTTP session containing user information
+     * @param user Email of the logged-in user, null if not authenticated
      * @return ResponseEntity 200 OK on success, 400 Bad Request otherwise
      */
     @PostMapping("/undo-last")
-    public ResponseEntity<Void> undoLastTask(HttpSession session) {
-        String user = (String) session.getAttribute("user");
-        if (user != null && taskStorage.removeLastTask(user)) {
+    public ResponseEntity<Void> undoLastTask(@CurrentUser String user) {
+        if (user != null && tenants.forUser(user).tasks().removeLastTask(user)) {
+            return ResponseEntity.ok().build();
+        }
+        return ResponseEntity.badRequest().build();
+    }
+
+    /**
+     * Completes the most recently undone task of the logged-in user again.
+     * Returns 400 Bad Request if no user is authenticated, there is nothing to redo
+     * or the undone task was retired from the catalog in the meantime.
+     * @param user Email of the logged-in user, null if not authenticated
+     * @return ResponseEntity 200 OK on success, 400 Bad Request otherwise
+     */
+    @PostMapping("/redo-last")
+    public ResponseEntity<Void> redoLastTask(@CurrentUser String user) {
+        if (user != null && tenants.forUser(user).tasks().redoLastTask(user, this::isActive)) {
             return ResponseEntity.ok().build();
         }
         return ResponseEntity.badRequest().build();
     }
 
+    /**
+     * @param task Completed task
+     * @return true if the task is an active catalog task
+     */
+    private boolean isActive(Task task) {
+        TaskCatalog.Entry entry = catalog.byName(task.task());
+        return entry != null && entry.active();
+    }
+
 
 }
@@ -0,0 +1,233 @@
+package com.example.taskapp.controller;
+
+import com.example.taskapp.auth.CredentialStore;
+import com.example.taskapp.storage.Partitioning;
+import com.example.taskapp.storage.Task;
+import com.example.taskapp.storage.TaskPage;
+import com.example.taskapp.storage.TaskQuery;
+import com.example.taskapp.storage.TaskRepository;
+import com.example.taskapp.tenant.Tenants;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Internal endpoints through which the other nodes of a partitioned deployment access this node's partition.
+ * They operate on the node-local repository only and are never routed further.
+ * The optional "tenant" parameter selects this node's partition of a tenant, see {@link Tenants#partition(String)}.
+ * Every request must carry the shared cluster secret, otherwise 403 Forbidden is returned.
+ */
+@RestController
+@RequestMapping("/internal/partition")
+@ConditionalOnProperty(name = "taskapp.cluster.enabled", havingValue = "true")
+public class PartitionController {
+
+    private final TaskRepository local;
+    private final Tenants tenants;
+    private final Partitioning partitioning;
+
+    /**
+     * Constructor-based dependency injection of the local repository.
+     * @param local Repository of this node's partition of the default tenant
+     * @param tenants Tenants with this node's partitions of their storage
+     * @param partitioning Cluster configuration used to check the secret and the ownership
+     */
+    public PartitionController(TaskRepository local, Tenants tenants, Partitioning partitioning) {
+        this.local = local;
+        this.tenants = tenants;
+        this.partitioning = partitioning;
+    }
+
+    /**
+     * @param tenant Tenant name, empty for the default tenant
+     * @return This node's repository of the tenant, or null for an invalid tenant name
+     */
+    private TaskRepository partition(String tenant) {
+        if (CredentialStore.DEFAULT_TENANT.equals(tenant)) {
+            return local;
+        }
+        return CredentialStore.isValidTenant(tenant) ? tenants.partition(tenant) : null;
+    }
+
+    /**
+     * Stores a batch of tasks of users owned by this node.
+     * @param secret Shared cluster secret
+     * @param tenant Tenant name, empty for the default tenant
+     * @param tasks Completed tasks
+     * @return 200 OK, 400 Bad Request for an invalid tenant, 403 Forbidden for a wrong secret, or 409 Conflict if a user belongs to another node
+     */
+    @PostMapping("/tasks")
+    public ResponseEntity<Void> saveAll(@RequestHeader(value = Partitioning.SECRET_HEADER, required = false) String secret,
+                                        @RequestParam(defaultValue = "") String tenant,
+                                        @RequestBody List<Task> tasks) {
+        if (!partitioning.isAuthorized(secret)) {
+            return ResponseEntity.status(403).build();
+        }
+        TaskRepository partition = partition(tenant);
+        if (partition == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        for (Task task : tasks) {
+            if (!partitioning.isOwner(task.user())) {
+                return ResponseEntity.status(409).build();
+            }
+        }
+        partition.saveAll(tasks);
+        return ResponseEntity.ok().build();
+    }
+
+    /**
+     * @param secret Shared cluster secret
+     * @param tenant Tenant name, empty for the default tenant
+     * @param user Email address of the user
+     * @param date Day of completion
+     * @return The removed task, 204 No Content if the user has no task on that day, or 403 Forbidden
+     */
+    @PostMapping("/remove-last")
+    public ResponseEntity<Task> removeLast(@RequestHeader(value = Partitioning.SECRET_HEADER, required = false) String secret,
+                                           @RequestParam(defaultValue = "") String tenant,
+                                           @RequestParam String user,
+                                           @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        if (!partitioning.isAuthorized(secret)) {
+            return ResponseEntity.status(403).build();
+        }
+        TaskRepository partition = partition(tenant);
+        if (partition == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        Task removed = partition.removeLast(user, date);
+        return removed != null ? ResponseEntity.ok(removed) : ResponseEntity.noContent().build();
+    }
+
+    /**
+     * @param secret Shared cluster secret
+     * @param tenant Tenant name, empty for the default tenant
+     * @param user Email address of the user
+     * @param date Day of completion
+     * @return Tasks of the user on that day, or 403 Forbidden
+     */
+    @GetMapping("/day")
+    public ResponseEntity<List<Task>> findByUserAndDate(@RequestHeader(value = Partitioning.SECRET_HEADER, required = false) String secret,
+                                                        @RequestParam(defaultValue = "") String tenant,
+                                                        @RequestParam String user,
+                                                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        if (!partitioning.isAuthorized(secret)) {
+            return ResponseEntity.status(403).build();
+        }
+        TaskRepository partition = partition(tenant);
+        if (partition == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(partition.findByUserAndDate(user, date));
+    }
+
+    /**
+     * @param secret Shared cluster secret
+     * @param tenant Tenant name, empty for the default tenant
+     * @param user Email address of the user
+     * @param month Month of completion (yyyy-MM)
+     * @return Tasks of the user in that month, or 403 Forbidden
+     */
+    @GetMapping("/month")
+    public ResponseEntity<List<Task>> findByUser(@RequestHeader(value = Partitioning.SECRET_HEADER, required = false) String secret,
+                                                 @RequestParam(defaultValue = "") String tenant,
+                                                 @RequestParam String user,
+                                                 @RequestParam String month) {
+        if (!partitioning.isAuthorized(secret)) {
+            return ResponseEntity.status(403).build();
+        }
+        TaskRepository partition = partition(tenant);
+        if (partition == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(partition.findByUser(user, YearMonth.parse(month)));
+    }
+
+    /**
+     * @param secret Shared cluster secret
+     * @param tenant Tenant name, empty for the default tenant
+     * @param month Month of completion (yyyy-MM)
+     * @return Tasks of this partition's users grouped by user, or 403 Forbidden
+     */
+    @GetMapping("/by-user")
+    public ResponseEntity<Map<String, List<Task>>> findAllByUser(@RequestHeader(value = Partitioning.SECRET_HEADER, required = false) String secret,
+                                                                 @RequestParam(defaultValue = "") String tenant,
+                                                                 @RequestParam String month) {
+        if (!partitioning.isAuthorized(secret)) {
+            return ResponseEntity.status(403).build();
+        }
+        TaskRepository partition = partition(tenant);
+        if (partition == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(partition.findAllByUser(YearMonth.parse(month)));
+    }
+
+    /**
+     * @param secret Shared cluster secret
+     * @param tenant Tenant name, empty for the default tenant
+     * @param month Month of completion (yyyy-MM)
+     * @return All tasks of this partition in that month, or 403 Forbidden
+     */
+    @GetMapping("/all")
+    public ResponseEntity<List<Task>> findAll(@RequestHeader(value = Partitioning.SECRET_HEADER, required = false) String secret,
+                                              @RequestParam(defaultValue = "") String tenant,
+                                              @RequestParam String month) {
+        if (!partitioning.isAuthorized(secret)) {
+            return ResponseEntity.status(403).build();
+        }
+        TaskRepository partition = partition(tenant);
+        if (partition == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(partition.findAll(YearMonth.parse(month)));
+    }
+
+    /**
+     * @param secret Shared cluster secret
+     * @param tenant Tenant name, empty for the default tenant
+     * @return Months stored in this partition, or 403 Forbidden
+     */
+    @GetMapping("/months")
+    public ResponseEntity<List<YearMonth>> months(@RequestHeader(value = Partitioning.SECRET_HEADER, required = false) String secret,
+                                                  @RequestParam(defaultValue = "") String tenant) {
+        if (!partitioning.isAuthorized(secret)) {
+            return ResponseEntity.status(403).build();
+        }
+        TaskRepository partition = partition(tenant);
+        if (partition == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(partition.months());
+    }
+
+    /**
+     * @param secret Shared cluster secret
+     * @param tenant Tenant name, empty for the default tenant
+     * @param query Page query with a cursor of this partition
+     * @return The page, 400 Bad Request for an invalid cursor, or 403 Forbidden
+     */
+    @PostMapping("/page")
+    public ResponseEntity<TaskPage> findPage(@RequestHeader(value = Partitioning.SECRET_HEADER, required = false) String secret,
+                                             @RequestParam(defaultValue = "") String tenant,
+                                             @RequestBody TaskQuery query) {
+        if (!partitioning.isAuthorized(secret)) {
+            return ResponseEntity.status(403).build();
+        }
+        TaskRepository partition = partition(tenant);
+        if (partition == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(partition.findPage(query));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.taskapp.controller;
+
+import com.example.taskapp.auth.CurrentUser;
+import com.example.taskapp.storage.TaskStats;
+import com.example.taskapp.tenant.Tenants;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+/**
+ * REST Controller providing the leaderboard statistics.
+ * Counts are read from the precomputed {@link TaskStats} of the caller's tenant, no task records are scanned per request.
+ * In a partitioned deployment (taskapp.cluster.enabled=true) a node's counters only see the completions made
+ * through that node, so the counts are gathered from all partitions on every request instead.
+ */
+@RestController
+@RequestMapping("/api")
+public class StatsController {
+
+    private final Tenants tenants;
+    private final boolean clustered;
+
+    /**
+     * Constructor-based dependency injection of the tenants and their statistics.
+     * @param tenants Tenants with their incrementally maintained task counts
+     * @param clustered true in a partitioned deployment
+     */
+    public StatsController(Tenants tenants, @Value("${taskapp.cluster.enabled:false}") boolean clustered) {
+        this.tenants = tenants;
+        this.clustered = clustered;
+    }
+
+    /**
+     * Returns how many times each user of the caller's tenant completed each task on a day, in its week and in its month.
+     * @param date Day of interest (yyyy-MM-dd), defaults to today
+     * @param user Email of the logged-in user, null if not authenticated
+     * @return ResponseEntity with the counts, or 401 Unauthorized if not authenticated
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<TaskStats.Snapshot> getStats(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                                       @CurrentUser String user) {
+        if (user == null) {
+            return ResponseEntity.status(401).build();
+        }
+        Tenants.Tenant tenant = tenants.forUser(user);
+        LocalDate day = date != null ? date : LocalDate.now();
+        return ResponseEntity.ok(clustered ? tenant.tasks().countTasks(day) : tenant.stats().snapshot(day));
+    }
+}
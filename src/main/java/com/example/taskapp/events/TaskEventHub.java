@@ -0,0 +1,279 @@
+package com.example.taskapp.events;
+
+import com.example.taskapp.auth.CredentialStore;
+import com.example.taskapp.storage.Task;
+import com.example.taskapp.storage.TaskListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes task completions and undos to the subscribers of /api/events as Server-Sent Events.
+ * Events come from {@link com.example.taskapp.storage.UserTask} through the {@link TaskListener} hook.
+ * The request thread only puts the event into every subscriber's bounded queue, the events are written
+ * to the connections on virtual threads, so a slow client never delays a completion or other clients.
+ * A subscriber whose queue overflows loses the queued events and gets a single "resync" event instead,
+ * telling the page to reload its data once, so memory stays bounded by max-subscribers × buffer-size events.
+ * Subscribers only receive the events of their own tenant. The hub itself is the listener of the default tenant,
+ * the services of other tenants publish through {@link #listenerFor(String)}.
+ */
+@Component
+public class TaskEventHub implements TaskListener {
+
+    static final String COMPLETED = "completed";
+    static final String REMOVED = "removed";
+    static final String RESYNC = "resync";
+
+    /**
+     * Data of one event.
+     * @param user Email of the user whose task changed
+     * @param date Day of completion
+     * @param task Name of the task
+     */
+    public record TaskEvent(String user, LocalDate date, String task) {
+    }
+
+    /**
+     * Event queued for delivery.
+     * @param id Sequence number sent as the SSE id
+     * @param type SSE event name, "completed" or "removed"
+     * @param data Event data sent as JSON
+     */
+    private record Queued(long id, String type, TaskEvent data) {
+    }
+
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long timeoutMs;
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * @param bufferSize Number of undelivered events kept per subscriber
+     * @param maxSubscribers Maximum number of open event streams
+     * @param timeoutMs Time after which a stream is closed, the browser then reconnects
+     */
+    public TaskEventHub(@Value("${taskapp.events.buffer-size:256}") int bufferSize,
+                        @Value("${taskapp.events.max-subscribers:1000}") int maxSubscribers,
+                        @Value("${taskapp.events.timeout-ms:1800000}") long timeoutMs) {
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Opens a new event stream for the default tenant.
+     * @return Emitter receiving all following events, or null if the subscriber limit is reached
+     */
+    public SseEmitter subscribe() {
+        return subscribe(CredentialStore.DEFAULT_TENANT);
+    }
+
+    /**
+     * Opens a new event stream.
+     * @param tenant Tenant whose events are sent to the stream
+     * @return Emitter receiving all following events of the tenant, or null if the subscriber limit is reached
+     */
+    public SseEmitter subscribe(String tenant) {
+        return subscribe(tenant, new SseEmitter(timeoutMs));
+    }
+
+    /**
+     * Registers an emitter as a subscriber.
+     * @param tenant Tenant whose events are sent to the emitter
+     * @param emitter Emitter receiving all following events
+     * @return The emitter, or null if the subscriber limit is reached
+     */
+    SseEmitter subscribe(String tenant, SseEmitter emitter) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+        Subscriber subscriber = new Subscriber(tenant, emitter);
+        subscribers.computeIfAbsent(tenant, key -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        emitter.onCompletion(subscriber::remove);
+        emitter.onTimeout(subscriber::remove);
+        emitter.onError(e -> subscriber.remove());
+        return emitter;
+    }
+
+    /**
+     * @return Number of open event streams
+     */
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    /**
+     * Creates the listener publishing the task changes of one tenant to the tenant's subscribers.
+     * @param tenant Tenant of the service the listener is registered with
+     * @return Listener of the tenant's task service
+     */
+    public TaskListener listenerFor(String tenant) {
+        return new TaskListener() {
+            @Override
+            public void taskAdded(Task task) {
+                publish(tenant, COMPLETED, task);
+            }
+
+            @Override
+            public void taskRemoved(Task task) {
+                publish(tenant, REMOVED, task);
+            }
+
+            @Override
+            public void tasksImported(List<Task> tasks) {
+                resync(tenant);
+            }
+        };
+    }
+
+    @Override
+    public void taskAdded(Task task) {
+        publish(CredentialStore.DEFAULT_TENANT, COMPLETED, task);
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        publish(CredentialStore.DEFAULT_TENANT, REMOVED, task);
+    }
+
+    /**
+     * Asks the default tenant's pages to reload once instead of sending every imported task.
+     */
+    @Override
+    public void tasksImported(List<Task> tasks) {
+        resync(CredentialStore.DEFAULT_TENANT);
+    }
+
+    private void resync(String tenant) {
+        Set<Subscriber> tenantSubscribers = subscribers.get(tenant);
+        if (tenantSubscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : tenantSubscribers) {
+            if (subscriber.resync()) {
+                senders.execute(subscriber::drain);
+            }
+        }
+    }
+
+    private void publish(String tenant, String type, Task task) {
+        Set<Subscriber> tenantSubscribers = subscribers.get(tenant);
+        if (tenantSubscribers == null || tenantSubscribers.isEmpty()) {
+            return;
+        }
+        Queued event = new Queued(sequence.incrementAndGet(), type, new TaskEvent(task.user(), task.date(), task.task()));
+        for (Subscriber subscriber : tenantSubscribers) {
+            if (subscriber.offer(event)) {
+                senders.execute(subscriber::drain);
+            }
+        }
+    }
+
+    /**
+     * Closes all event streams on shutdown.
+     */
+    @PreDestroy
+    public void close() {
+        for (Set<Subscriber> tenantSubscribers : subscribers.values()) {
+            for (Subscriber subscriber : tenantSubscribers) {
+                subscriber.emitter.complete();
+            }
+        }
+        senders.shutdown();
+    }
+
+    /**
+     * One open event stream with its bounded queue. At most one drain runs per subscriber at a time,
+     * so events are written in order.
+     */
+    private final class Subscriber {
+
+        private final String tenant;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Queued> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean resyncPending;
+
+        Subscriber(String tenant, SseEmitter emitter) {
+            this.tenant = tenant;
+            this.emitter = emitter;
+        }
+
+        /**
+         * Unregisters the subscriber, called once or more when the stream ends.
+         */
+        void remove() {
+            Set<Subscriber> tenantSubscribers = subscribers.get(tenant);
+            if (tenantSubscribers != null && tenantSubscribers.remove(this)) {
+                subscriberCount.decrementAndGet();
+            }
+        }
+
+        /**
+         * Queues an event, dropping the queue on overflow.
+         * @param event Event to deliver
+         * @return true if the caller has to schedule a drain
+         */
+        boolean offer(Queued event) {
+            if (!queue.offer(event)) {
+                return resync();
+            }
+            return draining.compareAndSet(false, true);
+        }
+
+        /**
+         * Drops the queued events in favour of a single resync event.
+         * @return true if the caller has to schedule a drain
+         */
+        boolean resync() {
+            queue.clear();
+            resyncPending = true;
+            return draining.compareAndSet(false, true);
+        }
+
+        /**
+         * Writes the queued events to the connection until the queue is empty.
+         */
+        void drain() {
+            try {
+                do {
+                    if (resyncPending) {
+                        resyncPending = false;
+                        emitter.send(SseEmitter.event().name(RESYNC).data(""));
+                    }
+                    Queued event;
+                    while ((event = queue.poll()) != null) {
+                        emitter.send(SseEmitter.event()
+                                .id(Long.toString(event.id()))
+                                .name(event.type())
+                                .data(event.data(), MediaType.APPLICATION_JSON));
+                    }
+                    draining.set(false);
+                } while ((!queue.isEmpty() || resyncPending) && draining.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException e) {
+                remove();
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
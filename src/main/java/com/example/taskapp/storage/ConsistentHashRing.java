@@ -0,0 +1,53 @@
+package com.example.taskapp.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring assigning users to partition nodes.
+ * Every node is placed on the ring many times (virtual nodes), so users spread evenly,
+ * and adding or removing a node only moves the users of the neighbouring ring segments.
+ */
+final class ConsistentHashRing {
+
+    private static final int VIRTUAL_NODES = 128;
+
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+
+    /**
+     * @param nodes Base URLs of the partition nodes
+     */
+    ConsistentHashRing(List<String> nodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one partition node is required");
+        }
+        for (String node : nodes) {
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    /**
+     * @param user Email address of the user
+     * @return Node owning the user's tasks
+     */
+    String ownerOf(String user) {
+        Map.Entry<Long, String> owner = ring.ceilingEntry(hash(user));
+        return (owner != null ? owner : ring.firstEntry()).getValue();
+    }
+
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+}
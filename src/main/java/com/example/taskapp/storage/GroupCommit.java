@@ -0,0 +1,100 @@
+package com.example.taskapp.storage;
+
+import java.io.IOException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Coordinates group commits: many threads register changes, one of them (the leader)
+ * persists everything registered so far, the others wait for its result.
+ * A change must be applied before it is registered, so that the leader's flush includes it.
+ * Waiting uses a lock condition instead of a monitor, so waiting virtual threads release their carrier thread.
+ */
+class GroupCommit {
+
+    /**
+     * Persists all changes registered so far.
+     */
+    interface Flush {
+        void run() throws IOException;
+    }
+
+    private long registered;
+    private long committed;
+    private boolean flushing;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition done = lock.newCondition();
+
+    /**
+     * Registers an already applied change.
+     * @return Ticket to pass to {@link #await(long, Flush)}
+     */
+    long register() {
+        lock.lock();
+        try {
+            return ++registered;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks everything registered so far as committed, for callers that persisted the changes themselves.
+     */
+    void markCommitted() {
+        lock.lock();
+        try {
+            committed = registered;
+            done.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until the change with the given ticket is persisted, flushing it if no other thread is doing so.
+     * @param ticket Ticket returned by {@link #register()}
+     * @param flush Action persisting all registered changes
+     * @throws IOException if the flush fails
+     */
+    void await(long ticket, Flush flush) throws IOException {
+        while (true) {
+            long target;
+            lock.lock();
+            try {
+                while (flushing && committed < ticket) {
+                    try {
+                        done.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted while waiting for commit", e);
+                    }
+                }
+                if (committed >= ticket) {
+                    return;
+                }
+                flushing = true;
+                target = registered;
+            } finally {
+                lock.unlock();
+            }
+            boolean flushed = false;
+            try {
+                flush.run();
+                flushed = true;
+            } finally {
+                lock.lock();
+                try {
+                    if (flushed) {
+                        committed = Math.max(committed, target);
+                    }
+                    flushing = false;
+                    done.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.example.taskapp.storage;
+
+import io.micrometer.core.instrument.Timer;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Task repository backed by an embedded H2 database.
+ * Selected by taskapp.storage.backend=h2, the database location is set by taskapp.storage.h2.url.
+ * Tasks are stored in one table indexed by (user, date), so lookups don't depend on the size of the history.
+ */
+@Component
+@ConditionalOnProperty(name = "taskapp.storage.backend", havingValue = "h2")
+public class H2TaskRepository implements TaskRepository {
+
+    private final String url;
+    private final JdbcConnectionPool pool;
+
+    /**
+     * Opens the database and creates the table and its indexes if they don't exist.
+     * @param url JDBC URL of the embedded database
+     */
+    public H2TaskRepository(@Value("${taskapp.storage.h2.url:jdbc:h2:file:./tasks/tasks}") String url) {
+        this.url = url;
+        this.pool = JdbcConnectionPool.create(url, "sa", "");
+        try (Connection connection = pool.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS completed_task ("
+                    + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "user_email VARCHAR(320) NOT NULL, "
+                    + "completed DATE NOT NULL, "
+                    + "task VARCHAR(255) NOT NULL)");
+            statement.execute("CREATE INDEX IF NOT EXISTS completed_task_user_date ON completed_task (user_email, completed, id)");
+            statement.execute("CREATE INDEX IF NOT EXISTS completed_task_date ON completed_task (completed, id)");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to initialize task database " + url, e);
+        }
+    }
+
+    /**
+     * Inserts a completed task.
+     * @param task Completed task
+     * @throws IllegalStateException if the task can't be inserted
+     */
+    @Override
+    public void save(Task task) {
+        Timer.Sample sample = Timer.start();
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "INSERT INTO completed_task (user_email, completed, task) VALUES (?, ?, ?)")) {
+            statement.setString(1, task.user());
+            statement.setObject(2, task.date());
+            statement.setString(3, task.task());
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to store task", e);
+        }
+        sample.stop(StorageMetrics.save(StorageMetrics.H2, "insert"));
+    }
+
+    /**
+     * Inserts several completed tasks as one JDBC batch in a single transaction.
+     * @param tasks Completed tasks
+     * @throws IllegalStateException if the batch can't be inserted, none of the tasks is then stored
+     */
+    @Override
+    public void saveAll(List<Task> tasks) {
+        Timer.Sample sample = Timer.start();
+        try (Connection connection = pool.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO completed_task (user_email, completed, task) VALUES (?, ?, ?)")) {
+                for (Task task : tasks) {
+                    statement.setString(1, task.user());
+                    statement.setObject(2, task.date());
+                    statement.setString(3, task.task());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to store " + tasks.size() + " tasks", e);
+        }
+        sample.stop(StorageMetrics.save(StorageMetrics.H2, "batch"));
+    }
+
+    /**
+     * Deletes the most recently inserted task of a user on a given day in one transaction.
+     * @param user Email address of the user
+     * @param date Day of completion
+     * @return The removed task, or null if there was none
+     * @throws IllegalStateException if the task can't be deleted
+     */
+    @Override
+    public Task removeLast(String user, LocalDate date) {
+        try (Connection connection = pool.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT id, task FROM completed_task WHERE user_email = ? AND completed = ? "
+                            + "ORDER BY id DESC LIMIT 1 FOR UPDATE");
+                 PreparedStatement delete = connection.prepareStatement("DELETE FROM completed_task WHERE id = ?")) {
+                select.setString(1, user);
+                select.setObject(2, date);
+                Task removed = null;
+                try (ResultSet rows = select.executeQuery()) {
+                    if (rows.next()) {
+                        delete.setLong(1, rows.getLong("id"));
+                        delete.executeUpdate();
+                        removed = new Task(user, date, rows.getString("task"));
+                    }
+                }
+                connection.commit();
+                return removed;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to remove task of " + user, e);
+        }
+    }
+
+    @Override
+    public List<Task> findByUserAndDate(String user, LocalDate date) {
+        return query("findByUserAndDate", "SELECT user_email, completed, task FROM completed_task WHERE user_email = ? AND completed = ? ORDER BY id",
+                user, date);
+    }
+
+    @Override
+    public List<Task> findByUser(String user, YearMonth month) {
+        return query("findByUser", "SELECT user_email, completed, task FROM completed_task "
+                        + "WHERE user_email = ? AND completed BETWEEN ? AND ? ORDER BY id",
+                user, month.atDay(1), month.atEndOfMonth());
+    }
+
+    @Override
+    public Map<String, List<Task>> findAllByUser(YearMonth month) {
+        Map<String, List<Task>> allUserTasks = new HashMap<>();
+        for (Task task : query("findAllByUser", "SELECT user_email, completed, task FROM completed_task "
+                + "WHERE completed BETWEEN ? AND ? ORDER BY id", month.atDay(1), month.atEndOfMonth())) {
+            allUserTasks.computeIfAbsent(task.user(), user -> new ArrayList<>()).add(task);
+        }
+        return allUserTasks;
+    }
+
+    @Override
+    public List<Task> findAll(YearMonth month) {
+        return query("findAll", "SELECT user_email, completed, task FROM completed_task "
+                + "WHERE completed BETWEEN ? AND ? ORDER BY id", month.atDay(1), month.atEndOfMonth());
+    }
+
+    @Override
+    public List<YearMonth> months() {
+        List<YearMonth> months = new ArrayList<>();
+        try (Connection connection = pool.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT DISTINCT YEAR(completed), MONTH(completed) "
+                     + "FROM completed_task ORDER BY 1, 2")) {
+            while (rows.next()) {
+                months.add(YearMonth.of(rows.getInt(1), rows.getInt(2)));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return months;
+    }
+
+    @Override
+    public Stream<Task> streamGroupedByUser(YearMonth month) {
+        return stream("streamGroupedByUser", "SELECT user_email, completed, task FROM completed_task "
+                + "WHERE completed BETWEEN ? AND ? ORDER BY user_email, id", month.atDay(1), month.atEndOfMonth());
+    }
+
+    @Override
+    public Stream<Task> streamByUser(String user, YearMonth month) {
+        return stream("streamByUser", "SELECT user_email, completed, task FROM completed_task "
+                        + "WHERE user_email = ? AND completed BETWEEN ? AND ? ORDER BY id",
+                user, month.atDay(1), month.atEndOfMonth());
+    }
+
+    /**
+     * Returns one page of tasks using the (completed, id) index; the cursor is the id of the next row.
+     * @param query Date range, optional user, cursor and page size
+     * @return Matching tasks and the cursor of the next page
+     */
+    @Override
+    public TaskPage findPage(TaskQuery query) {
+        long after;
+        try {
+            after = query.cursor() != null ? Long.parseLong(query.cursor()) : 0;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + query.cursor(), e);
+        }
+        String sql = "SELECT id, user_email, completed, task FROM completed_task WHERE completed BETWEEN ? AND ? AND id >= ? "
+                + (query.user() != null ? "AND user_email = ? " : "") + "ORDER BY id LIMIT ?";
+        List<Task> page = new ArrayList<>();
+        String nextCursor = null;
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            int parameter = 1;
+            statement.setObject(parameter++, query.from());
+            statement.setObject(parameter++, query.to());
+            statement.setLong(parameter++, after);
+            if (query.user() != null) {
+                statement.setString(parameter++, query.user());
+            }
+            statement.setInt(parameter, query.size() + 1);
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    if (page.size() == query.size()) {
+                        nextCursor = Long.toString(rows.getLong("id"));
+                        break;
+                    }
+                    page.add(new Task(rows.getString("user_email"),
+                            rows.getObject("completed", LocalDate.class),
+                            rows.getString("task")));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        StorageMetrics.scanned(StorageMetrics.H2, "findPage", page.size() + (nextCursor != null ? 1 : 0));
+        return new TaskPage(page, nextCursor);
+    }
+
+    /**
+     * Runs a query returning task rows.
+     * @param name Name of the query, used to tag the scanned records metric
+     * @param sql Query selecting user_email, completed and task
+     * @param parameters Values of the query parameters
+     * @return Tasks in the order returned by the query
+     */
+    private List<Task> query(String name, String sql, Object... parameters) {
+        try (Stream<Task> tasks = stream(name, sql, parameters)) {
+            return tasks.collect(Collectors.toCollection(ArrayList::new));
+        } catch (IllegalStateException e) {
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Runs a query and returns its rows lazily, read from the result set as the stream is consumed.
+     * The connection stays open until the stream is closed, which also records the number of rows read.
+     * @param name Name of the query, used to tag the scanned records metric
+     * @param sql Query selecting user_email, completed and task
+     * @param parameters Values of the query parameters
+     * @return Stream of tasks in the order returned by the query
+     */
+    private Stream<Task> stream(String name, String sql, Object... parameters) {
+        Connection connection = null;
+        PreparedStatement statement = null;
+        try {
+            connection = pool.getConnection();
+            statement = connection.prepareStatement(sql);
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            ResultSet rows = statement.executeQuery();
+            Connection open = connection;
+            PreparedStatement query = statement;
+            long[] read = new long[1];
+            Spliterator<Task> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED) {
+                @Override
+                public boolean tryAdvance(Consumer<? super Task> action) {
+                    try {
+                        if (!rows.next()) {
+                            return false;
+                        }
+                        read[0]++;
+                        action.accept(new Task(rows.getString("user_email"),
+                                rows.getObject("completed", LocalDate.class),
+                                rows.getString("task")));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new IllegalStateException("Failed to read task rows", e);
+                    }
+                }
+            };
+            return StreamSupport.stream(spliterator, false).onClose(() -> {
+                StorageMetrics.scanned(StorageMetrics.H2, name, read[0]);
+                try (open; query; rows) {
+                    // closes the result set, the statement and returns the connection to the pool
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            });
+        } catch (SQLException | RuntimeException e) {
+            try (Connection failed = connection; PreparedStatement failedStatement = statement) {
+                // closes the statement and returns the connection to the pool before rethrowing
+            } catch (SQLException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            if (e instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Failed to query tasks", e);
+        }
+    }
+
+    /**
+     * Opens a separate database for the tenant, named after this one with the tenant appended
+     * (jdbc:h2:file:./tasks/tasks becomes jdbc:h2:file:./tasks/tasks_&lt;tenant&gt;). URL settings after ';' are kept.
+     */
+    @Override
+    public TaskRepository forTenant(String tenant) {
+        int settings = url.indexOf(';');
+        String tenantUrl = settings < 0 ? url + "_" + tenant
+                : url.substring(0, settings) + "_" + tenant + url.substring(settings);
+        return new H2TaskRepository(tenantUrl);
+    }
+
+    /**
+     * Closes all pooled connections on shutdown.
+     */
+    @PreDestroy
+    @Override
+    public void close() {
+        pool.dispose();
+    }
+}
@@ -0,0 +1,1090 @@
+package com.example.taskapp.storage;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Task repository storing completed tasks in JSON files, one file per month (tasks/tasks_YYYY_MM.json).
+ * Selected by taskapp.storage.backend=json, which is the default.
+ * Two write modes are supported (property taskapp.storage.write-mode):
+ * "snapshot" rewrites the whole monthly file on every change,
+ * "journal" appends each change to an append-only journal that is compacted into the monthly file in the background.
+ * Reads are served from an in-memory index of the current month, which is hydrated once and kept in sync on writes.
+ * Writes are serialized per user by striped locks, so completions of different users proceed in parallel
+ * and share a single fsync or file rewrite (group commit).
+ */
+@Component
+@ConditionalOnProperty(name = "taskapp.storage.backend", havingValue = "json", matchIfMissing = true)
+public class JsonTaskRepository implements TaskRepository {
+
+    private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final String WRITE_MODE_SNAPSHOT = "snapshot";
+    private static final String WRITE_MODE_JOURNAL = "journal";
+    private static final int USER_LOCK_STRIPES = 64;
+
+    private final String directory;
+    private final boolean journalMode;
+    private final long compactThresholdBytes;
+    private final boolean archiveEnabled;
+
+    /**
+     * Opened archives of closed months keyed by the monthly file they replace.
+     */
+    private final Map<String, MonthArchive> archives = new ConcurrentHashMap<>();
+
+    /**
+     * Open journals keyed by the monthly file they belong to.
+     */
+    private final Map<String, TaskJournal> journals = new ConcurrentHashMap<>();
+
+    /**
+     * In-memory index of the current month. Per-user data is guarded by striped user locks,
+     * indexGuard is held shared by writers and exclusively only while the index is replaced
+     * or the monthly file it was loaded from is swapped.
+     */
+    private volatile TaskIndex index;
+    private volatile FileStamp indexStamp;
+
+    /**
+     * Closed month read by the latest {@link #findPage(TaskQuery)}, so that paging through it loads it once.
+     */
+    private volatile PagedMonth pagedMonth;
+    private final ReentrantReadWriteLock indexGuard = new ReentrantReadWriteLock();
+    private final ReentrantLock[] userLocks = new ReentrantLock[USER_LOCK_STRIPES];
+
+    /**
+     * Modification time and size of a file, used to detect changes made outside of this service.
+     */
+    private record FileStamp(FileTime modified, long size) {
+
+        static FileStamp of(Path path) {
+            try {
+                return new FileStamp(Files.getLastModifiedTime(path), Files.size(path));
+            } catch (IOException e) {
+                return new FileStamp(null, -1);
+            }
+        }
+    }
+
+    /**
+     * Index of a closed month cached for paging and the stamp of the file it was loaded from.
+     */
+    private record PagedMonth(TaskIndex tasks, FileStamp stamp) {
+    }
+
+    /**
+     * Constructor that ensures the tasks directory exists.
+     * Creates the directory if it doesn't exist during application startup.
+     * In snapshot mode, journals left over from a previous run in journal mode are folded into the monthly files.
+     * @param directory Directory holding the monthly files
+     * @param writeMode "snapshot" (default) or "journal"
+     * @param compactThresholdBytes Journal size after which it is compacted even for the current month
+     */
+    public JsonTaskRepository(String directory, String writeMode, long compactThresholdBytes) {
+        this(directory, writeMode, compactThresholdBytes, false);
+    }
+
+    /**
+     * Constructor that ensures the tasks directory exists, see {@link #JsonTaskRepository(String, String, long)}.
+     * @param directory Directory holding the monthly files
+     * @param writeMode "snapshot" (default) or "journal"
+     * @param compactThresholdBytes Journal size after which it is compacted even for the current month
+     * @param archiveEnabled true to convert closed months into memory-mapped archives
+     */
+    @Autowired
+    public JsonTaskRepository(@Value("${taskapp.storage.directory:tasks}") String directory,
+                              @Value("${taskapp.storage.write-mode:snapshot}") String writeMode,
+                              @Value("${taskapp.storage.journal.compact-threshold-bytes:1048576}") long compactThresholdBytes,
+                              @Value("${taskapp.storage.archive.enabled:false}") boolean archiveEnabled) {
+        this.directory = directory;
+        this.journalMode = WRITE_MODE_JOURNAL.equalsIgnoreCase(writeMode);
+        this.compactThresholdBytes = compactThresholdBytes;
+        this.archiveEnabled = archiveEnabled;
+        for (int i = 0; i < userLocks.length; i++) {
+            userLocks[i] = new ReentrantLock();
+        }
+        Path directoryPath = Paths.get(directory);
+        if (!Files.exists(directoryPath)) {
+            try {
+                Files.createDirectories(directoryPath);
+                System.out.println("Directory " + directory + " was created successfully.");
+            } catch (IOException e) {
+                System.err.println("Failed to create directory " + e.getMessage());
+            }
+        }
+        if (!journalMode) {
+            compactAll(true);
+        }
+    }
+
+    /**
+     * Generates the filename for the current month's task file.
+     * Files are named in format: tasks_YYYY_MM.json
+     * @return Complete file path for the current month's task file
+     */
+    private String getFileName() {
+        return getFileName(LocalDate.now());
+    }
+
+    /**
+     * Generates the filename of the task file for the month containing the given date.
+     * @param date Any day of the month
+     * @return Complete file path for that month's task file
+     */
+    private String getFileName(LocalDate date) {
+        return directory + File.separator + "tasks_" + MONTH_FORMATTER.format(date) + ".json";
+    }
+
+    /**
+     * Returns the lock guarding the indexed data of one user.
+     * Users are spread over a fixed number of lock stripes, so writes of different users run in parallel.
+     * @param user Email address of the user
+     * @return Lock for the user's stripe
+     */
+    private ReentrantLock lockFor(String user) {
+        return userLocks[stripe(user)];
+    }
+
+    private static int stripe(String user) {
+        int hash = Objects.hashCode(user);
+        return (hash ^ (hash >>> 16)) & (USER_LOCK_STRIPES - 1);
+    }
+
+    /**
+     * Stores a completed task.
+     * The task is added to the in-memory index under the user's lock and then persisted,
+     * either as one journal line or by a group-committed rewrite of the monthly task file.
+     * Tasks dated outside the current month are written to their own month's file.
+     * @param record Completed task
+     * @throws UncheckedIOException if the task can't be persisted, it is then not stored at all
+     */
+    @Override
+    public void save(Task record) {
+        if (!isCurrentMonth(record.date())) {
+            indexGuard.writeLock().lock();
+            try {
+                pagedMonth = null;
+                TaskIndex tasks = monthIndex(YearMonth.from(record.date()));
+                tasks.add(record);
+                persistAdded(tasks, record);
+            } finally {
+                indexGuard.writeLock().unlock();
+            }
+            return;
+        }
+        TaskIndex tasks;
+        indexGuard.readLock().lock();
+        try {
+            tasks = index(record.date());
+            ReentrantLock lock = lockFor(record.user());
+            lock.lock();
+            try {
+                tasks.add(record);
+                if (journalMode) {
+                    persistAdded(tasks, record);
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            indexGuard.readLock().unlock();
+        }
+        saveAdded(tasks, List.of(record));
+    }
+
+    /**
+     * Stores several completed tasks with one persistence step per month:
+     * one group-committed rewrite of the monthly file, or one journal write with a single fsync.
+     * The locks of all users in the batch are held while their records are indexed and journaled.
+     * @param records Completed tasks, possibly of different users and months
+     * @throws UncheckedIOException if a month can't be persisted, its records are then not stored,
+     *         months persisted before it are kept
+     */
+    @Override
+    public void saveAll(List<Task> records) {
+        Map<YearMonth, List<Task>> byMonth = new LinkedHashMap<>();
+        for (Task record : records) {
+            byMonth.computeIfAbsent(YearMonth.from(record.date()), month -> new ArrayList<>()).add(record);
+        }
+        for (Map.Entry<YearMonth, List<Task>> entry : byMonth.entrySet()) {
+            List<Task> monthRecords = entry.getValue();
+            if (!entry.getKey().equals(YearMonth.now())) {
+                indexGuard.writeLock().lock();
+                try {
+                    pagedMonth = null;
+                    TaskIndex tasks = monthIndex(entry.getKey());
+                    monthRecords.forEach(tasks::add);
+                    persistAllAdded(tasks, monthRecords);
+                } finally {
+                    indexGuard.writeLock().unlock();
+                }
+                continue;
+            }
+            TaskIndex tasks;
+            indexGuard.readLock().lock();
+            try {
+                tasks = index();
+                List<ReentrantLock> locks = locksFor(monthRecords);
+                locks.forEach(ReentrantLock::lock);
+                try {
+                    monthRecords.forEach(tasks::add);
+                    if (journalMode) {
+                        persistAllAdded(tasks, monthRecords);
+                        continue;
+                    }
+                } finally {
+                    locks.forEach(ReentrantLock::unlock);
+                }
+            } finally {
+                indexGuard.readLock().unlock();
+            }
+            saveAdded(tasks, monthRecords);
+        }
+    }
+
+    /**
+     * Returns the distinct stripe locks of the users of the given records in stripe order,
+     * so that batches locking several stripes can't deadlock each other.
+     * @param records Records whose users should be locked
+     * @return Locks to acquire in list order
+     */
+    private List<ReentrantLock> locksFor(List<Task> records) {
+        TreeMap<Integer, ReentrantLock> locks = new TreeMap<>();
+        for (Task record : records) {
+            int stripe = stripe(record.user());
+            locks.put(stripe, userLocks[stripe]);
+        }
+        return new ArrayList<>(locks.values());
+    }
+
+    /**
+     * Persists records added to a month index, as one journal write or one file rewrite.
+     * Called with the index locked; if persisting fails, the records are taken out of the index again.
+     * @param tasks Index the records were added to
+     * @param records Added records
+     * @throws UncheckedIOException if the records can't be persisted
+     */
+    private void persistAllAdded(TaskIndex tasks, List<Task> records) {
+        try {
+            if (!journalMode) {
+                saveTasks(tasks);
+                return;
+            }
+            List<TaskJournal.Entry> lines = new ArrayList<>(records.size());
+            for (Task record : records) {
+                lines.add(TaskJournal.Entry.added(record));
+            }
+            Timer.Sample sample = Timer.start();
+            journalFor(tasks.getFileName()).appendAll(lines);
+            sample.stop(StorageMetrics.save(StorageMetrics.JSON, WRITE_MODE_JOURNAL));
+        } catch (IOException e) {
+            discard(tasks, records);
+            throw new UncheckedIOException("Failed to store tasks in " + tasks.getFileName(), e);
+        } catch (UncheckedIOException e) {
+            discard(tasks, records);
+            throw e;
+        }
+    }
+
+    /**
+     * Persists a record added to a month index, see {@link #persistAllAdded(TaskIndex, List)}.
+     * @param tasks Index the record was added to
+     * @param record Added record
+     */
+    private void persistAdded(TaskIndex tasks, Task record) {
+        persistAllAdded(tasks, List.of(record));
+    }
+
+    /**
+     * Rewrites the monthly file after records were added to the resident index, outside of the users' locks.
+     * If the rewrite fails, the records are taken out of the index again under their users' locks.
+     * @param tasks Index the records were added to
+     * @param records Added records
+     * @throws UncheckedIOException if the file can't be written
+     */
+    private void saveAdded(TaskIndex tasks, List<Task> records) {
+        try {
+            saveTasks(tasks);
+        } catch (UncheckedIOException e) {
+            List<ReentrantLock> locks = locksFor(records);
+            locks.forEach(ReentrantLock::lock);
+            try {
+                discard(tasks, records);
+            } finally {
+                locks.forEach(ReentrantLock::unlock);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Takes records whose persistence failed out of the index, newest first, so memory matches the files again.
+     * @param tasks Index the records were added to
+     * @param records Records to take out
+     */
+    private static void discard(TaskIndex tasks, List<Task> records) {
+        for (int i = records.size() - 1; i >= 0; i--) {
+            tasks.remove(records.get(i));
+        }
+    }
+
+    /**
+     * Checks whether a date falls into the month served by the resident index.
+     * @param date Day to check
+     * @return true for days of the current month
+     */
+    private boolean isCurrentMonth(LocalDate date) {
+        return YearMonth.from(date).equals(YearMonth.now());
+    }
+
+    /**
+     * Returns the tasks of a month: the resident index for the current month,
+     * otherwise an index loaded from the month's file just for this call.
+     * @param month Month to read
+     * @return Index of the month's tasks
+     */
+    private TaskIndex monthIndex(YearMonth month) {
+        if (month.equals(YearMonth.now())) {
+            return index();
+        }
+        return loadIndex(getFileName(month.atDay(1)));
+    }
+
+    /**
+     * Builds an index from a monthly file and its journal.
+     * @param fileName Path of the monthly file
+     * @return Index of all tasks in the file
+     */
+    private TaskIndex loadIndex(String fileName) {
+        TaskIndex tasks = new TaskIndex(fileName);
+        MonthArchive archive = hasJournal(fileName) ? null : archiveFor(fileName);
+        if (archive != null) {
+            for (int i = 0; i < archive.size(); i++) {
+                tasks.add(archive.get(i));
+            }
+            return tasks;
+        }
+        for (Task task : loadTasks(fileName)) {
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    /**
+     * Returns the journal of a monthly file, opening it on first use.
+     * @param fileName Monthly task file
+     * @return Journal belonging to the file
+     */
+    private TaskJournal journalFor(String fileName) {
+        return journals.computeIfAbsent(fileName, name -> new TaskJournal(Paths.get(name)));
+    }
+
+    /**
+     * Appends a record to the journal of the index's month and waits for the group fsync.
+     * @param tasks Index the record was applied to
+     * @param record Task record or tombstone to append
+     * @throws UncheckedIOException if the record can't be written or synced
+     */
+    private void appendToJournal(TaskIndex tasks, TaskJournal.Entry record) {
+        try {
+            Timer.Sample sample = Timer.start();
+            journalFor(tasks.getFileName()).append(record);
+            sample.stop(StorageMetrics.save(StorageMetrics.JSON, WRITE_MODE_JOURNAL));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write the journal of " + tasks.getFileName(), e);
+        }
+    }
+
+    /**
+     * Persists a change already applied to the index by rewriting its monthly JSON file.
+     * Concurrent callers are group committed: one of them writes the file for all changes made so far.
+     * @param tasks Index containing all tasks of the month
+     * @throws UncheckedIOException if the file can't be written
+     */
+    private void saveTasks(TaskIndex tasks) {
+        GroupCommit commit = tasks.getCommit();
+        try {
+            Timer.Sample sample = Timer.start();
+            commit.await(commit.register(), () -> writeSnapshot(tasks));
+            sample.stop(StorageMetrics.save(StorageMetrics.JSON, WRITE_MODE_SNAPSHOT));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write " + tasks.getFileName(), e);
+        }
+    }
+
+    /**
+     * Writes all indexed tasks to a temporary file (indentation of 2 spaces)
+     * and atomically replaces the monthly file with it, so readers never see a torn file.
+     * Both the file and the rename are forced to disk before the write is acknowledged.
+     * @param tasks Index containing all tasks of the month
+     */
+    private void writeSnapshot(TaskIndex tasks) throws IOException {
+        Path path = Paths.get(tasks.getFileName());
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        TaskCodec.writeArray(tmp, tasks.all());
+        indexGuard.writeLock().lock();
+        try {
+            Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            if (index == tasks) {
+                indexStamp = FileStamp.of(path);
+            }
+        } finally {
+            indexGuard.writeLock().unlock();
+        }
+        TaskJournal.syncDirectory(path);
+    }
+
+    /**
+     * Returns the index of the current month, see {@link #index(LocalDate)}.
+     * @return Index of the current month's tasks
+     */
+    private TaskIndex index() {
+        return index(LocalDate.now());
+    }
+
+    /**
+     * Returns the index of the month containing the given date, hydrating it from disk when needed.
+     * The index is built once per month and then kept in sync by the write methods;
+     * it is only rebuilt when the monthly file was changed outside of this service.
+     * @param date Day whose month should be indexed
+     * @return Index of the month's tasks
+     */
+    private TaskIndex index(LocalDate date) {
+        String fileName = getFileName(date);
+        TaskIndex current = index;
+        if (current != null && current.getFileName().equals(fileName)
+                && FileStamp.of(Paths.get(fileName)).equals(indexStamp)) {
+            return current;
+        }
+        boolean shared = indexGuard.getReadHoldCount() > 0;
+        if (shared) {
+            indexGuard.readLock().unlock();
+        }
+        indexGuard.writeLock().lock();
+        try {
+            FileStamp stamp = FileStamp.of(Paths.get(fileName));
+            if (index == null || !index.getFileName().equals(fileName) || !stamp.equals(indexStamp)) {
+                index = loadIndex(fileName);
+                indexStamp = stamp;
+            }
+            return index;
+        } finally {
+            if (shared) {
+                indexGuard.readLock().lock();
+            }
+            indexGuard.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Hydrates the index of the current month at startup and archives closed months if enabled.
+     */
+    @PostConstruct
+    public void hydrateIndex() {
+        index();
+        archiveClosedMonths();
+    }
+
+    /**
+     * Loads all tasks from a monthly JSON file.
+     * In journal mode the month's journal is replayed on top of the file; a journal is only opened
+     * for months that have one, so reading a month never leaves a journal behind.
+     * Returns an empty list if the file doesn't exist or is empty.
+     * @param fileName Path of the monthly file
+     * @return All tasks from the month in completion order
+     */
+    private List<Task> loadTasks(String fileName) {
+        Timer.Sample sample = Timer.start();
+        List<Task> tasks = loadSnapshot(fileName);
+        if (journalMode && (journals.containsKey(fileName) || hasJournal(fileName))) {
+            journalFor(fileName).replayInto(tasks);
+        }
+        sample.stop(StorageMetrics.load(StorageMetrics.JSON));
+        return tasks;
+    }
+
+    /**
+     * Loads the tasks stored directly in a monthly JSON file, without any journal.
+     * A closed month whose JSON file was replaced by an archive is read from the archive.
+     * The file is decoded by the streaming {@link TaskCodec} as UTF-8, without building a JSON tree.
+     * @param fileName Path of the monthly file
+     * @return The file's records, empty if the file doesn't exist or is empty
+     * @throws IllegalStateException if the file is not a valid task file, so that it is never overwritten as empty
+     */
+    private List<Task> loadSnapshot(String fileName) {
+        Path path = Paths.get(fileName);
+        if (!Files.exists(path)) {
+            MonthArchive archive = archiveFor(fileName);
+            return archive != null ? archive.all() : new ArrayList<>();
+        }
+        try {
+            StorageMetrics.fileSize().record(Files.size(path));
+            Timer.Sample sample = Timer.start();
+            List<Task> tasks = TaskCodec.readArray(path);
+            sample.stop(StorageMetrics.parse());
+            return tasks;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Damaged task file " + fileName, e);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Retrieves the tasks a user completed on a given day, looked up by user and date.
+     * @param user Email address of the user
+     * @param date Day of completion
+     * @return Tasks in completion order
+     */
+    @Override
+    public List<Task> findByUserAndDate(String user, LocalDate date) {
+        MonthArchive archive = readableArchive(YearMonth.from(date));
+        if (archive != null) {
+            return archive.forUserAndDate(user, date);
+        }
+        TaskIndex tasks = monthIndex(YearMonth.from(date));
+        ReentrantLock lock = lockFor(user);
+        lock.lock();
+        try {
+            List<Task> found = new ArrayList<>(tasks.forUserAndDate(user, date));
+            StorageMetrics.scanned(StorageMetrics.JSON, "findByUserAndDate", found.size());
+            return found;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves all tasks a user completed in a given month.
+     * @param user Email address of the user
+     * @param month Month of completion
+     * @return Tasks in completion order
+     */
+    @Override
+    public List<Task> findByUser(String user, YearMonth month) {
+        MonthArchive archive = readableArchive(month);
+        if (archive != null) {
+            return archive.forUser(user);
+        }
+        List<Task> found = copyForUser(monthIndex(month), user);
+        StorageMetrics.scanned(StorageMetrics.JSON, "findByUser", found.size());
+        return found;
+    }
+
+    /**
+     * Copies the indexed tasks of one user while holding that user's lock.
+     * @param tasks Index of a month
+     * @param user Email address of the user
+     * @return The user's tasks in completion order
+     */
+    private List<Task> copyForUser(TaskIndex tasks, String user) {
+        ReentrantLock lock = lockFor(user);
+        lock.lock();
+        try {
+            return new ArrayList<>(tasks.forUser(user));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves all tasks of a month grouped by user.
+     * Each user's tasks are copied under that user's lock only, no global lock is taken.
+     * @param month Month of completion
+     * @return Map where keys are user emails and values are their tasks in completion order
+     */
+    @Override
+    public Map<String, List<Task>> findAllByUser(YearMonth month) {
+        TaskIndex tasks = monthIndex(month);
+        Map<String, List<Task>> allUserTasks = new HashMap<>();
+        long scanned = 0;
+        for (String user : tasks.users()) {
+            List<Task> userTasks = copyForUser(tasks, user);
+            scanned += userTasks.size();
+            if (!userTasks.isEmpty()) {
+                allUserTasks.put(user, userTasks);
+            }
+        }
+        StorageMetrics.scanned(StorageMetrics.JSON, "findAllByUser", scanned);
+        return allUserTasks;
+    }
+
+    /**
+     * Retrieves all tasks of a month, read directly from the archive for archived months.
+     * @param month Month of completion
+     * @return Tasks in completion order
+     */
+    @Override
+    public List<Task> findAll(YearMonth month) {
+        MonthArchive archive = readableArchive(month);
+        List<Task> tasks = archive != null ? archive.all() : new ArrayList<>(monthIndex(month).all());
+        StorageMetrics.scanned(StorageMetrics.JSON, "findAll", tasks.size());
+        return tasks;
+    }
+
+    /**
+     * Lists the months that have a monthly file, an archive or a journal in the tasks directory.
+     * @return Months in ascending order
+     */
+    @Override
+    public List<YearMonth> months() {
+        Set<YearMonth> months = new TreeSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get(directory),
+                "tasks_*{.json," + MonthArchive.SUFFIX + "," + TaskJournal.JOURNAL_SUFFIX + "," + TaskJournal.SEALED_SUFFIX + "}")) {
+            for (Path path : stream) {
+                try {
+                    months.add(YearMonth.parse(path.getFileName().toString().substring(6, 13), MONTH_FORMATTER));
+                } catch (RuntimeException e) {
+                    // not a monthly file
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return new ArrayList<>(months);
+    }
+
+    /**
+     * Streams the tasks of a month user by user.
+     * Only the tasks of the user currently being streamed are copied, so a slow consumer never holds a lock
+     * and the extra memory is bounded by one user's month.
+     * @param month Month of completion
+     * @return Tasks with each user's tasks contiguous and in completion order
+     */
+    @Override
+    public Stream<Task> streamGroupedByUser(YearMonth month) {
+        TaskIndex tasks = monthIndex(month);
+        return tasks.users().stream().flatMap(user -> copyForUser(tasks, user).stream());
+    }
+
+    @Override
+    public Stream<Task> streamByUser(String user, YearMonth month) {
+        return findByUser(user, month).stream();
+    }
+
+    /**
+     * Returns one page of tasks, scanning the stored months from the cursor's month to the end of the range.
+     * Only months that have files in the range are read. The cursor is "yyyy-MM:position" where position is
+     * the index position of the next record; removed records keep their positions, so an undo between two pages
+     * doesn't shift the cursor. A closed month stays cached while it is paged through, see {@link #pageIndex(YearMonth)}.
+     * @param query Date range, optional user, cursor and page size
+     * @return Matching tasks and the cursor of the next page
+     */
+    @Override
+    public TaskPage findPage(TaskQuery query) {
+        YearMonth first = YearMonth.from(query.from());
+        YearMonth last = YearMonth.from(query.to());
+        YearMonth cursorMonth = first;
+        int offset = 0;
+        if (query.cursor() != null) {
+            try {
+                String[] parts = query.cursor().split(":");
+                cursorMonth = YearMonth.parse(parts[0]);
+                offset = Integer.parseInt(parts[1]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + query.cursor(), e);
+            }
+            if (cursorMonth.isBefore(first) || cursorMonth.isAfter(last) || offset < 0) {
+                throw new IllegalArgumentException("Cursor outside of the queried range: " + query.cursor());
+            }
+        }
+        List<Task> page = new ArrayList<>();
+        long scanned = 0;
+        for (YearMonth month : months()) {
+            if (month.isBefore(cursorMonth) || month.isAfter(last)) {
+                continue;
+            }
+            TaskIndex tasks = pageIndex(month);
+            int position = month.equals(cursorMonth) ? offset : 0;
+            while (true) {
+                List<Integer> positions = nextPositions(tasks, query.user(), position, query.size() + 1);
+                if (positions.isEmpty()) {
+                    break;
+                }
+                for (int next : positions) {
+                    Task task = tasks.get(next);
+                    if (task == null) {
+                        continue;
+                    }
+                    scanned++;
+                    if (!query.matches(task)) {
+                        continue;
+                    }
+                    if (page.size() == query.size()) {
+                        StorageMetrics.scanned(StorageMetrics.JSON, "findPage", scanned);
+                        return new TaskPage(page, month + ":" + next);
+                    }
+                    page.add(task);
+                }
+                position = positions.get(positions.size() - 1) + 1;
+            }
+        }
+        StorageMetrics.scanned(StorageMetrics.JSON, "findPage", scanned);
+        return new TaskPage(page, null);
+    }
+
+    /**
+     * Returns the next positions to scan for a page: consecutive positions for all users,
+     * or the positions of the user's records, looked up under the user's lock.
+     * @param tasks Index of the month
+     * @param user Email address to filter by, or null for all users
+     * @param from First position to scan
+     * @param limit Maximum number of positions
+     * @return Ascending positions, empty at the end of the month
+     */
+    private List<Integer> nextPositions(TaskIndex tasks, String user, int from, int limit) {
+        if (user == null) {
+            List<Integer> positions = new ArrayList<>();
+            for (int position = from; position < tasks.end() && positions.size() < limit; position++) {
+                positions.add(position);
+            }
+            return positions;
+        }
+        ReentrantLock lock = lockFor(user);
+        lock.lock();
+        try {
+            return tasks.positionsOfUser(user, from, limit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the index a page is read from: the resident index for the current month, otherwise the index
+     * of the closed month last paged through, loaded again only for another month, after a write to a closed month
+     * or when its file was changed outside of this service. Writes to closed months hold indexGuard exclusively
+     * and drop the cached month, so it is loaded and cached under the shared lock.
+     * @param month Month to read
+     * @return Index of the month's tasks
+     */
+    private TaskIndex pageIndex(YearMonth month) {
+        if (month.equals(YearMonth.now())) {
+            return index();
+        }
+        String fileName = getFileName(month.atDay(1));
+        indexGuard.readLock().lock();
+        try {
+            FileStamp stamp = FileStamp.of(Paths.get(fileName));
+            PagedMonth cached = pagedMonth;
+            if (cached != null && cached.tasks().getFileName().equals(fileName) && cached.stamp().equals(stamp)) {
+                return cached.tasks();
+            }
+            TaskIndex tasks = loadIndex(fileName);
+            pagedMonth = new PagedMonth(tasks, stamp);
+            return tasks;
+        } finally {
+            indexGuard.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the most recently completed task of a user on a given day.
+     * In journal mode the removal is persisted as a tombstone line.
+     * @param user Email address of the user
+     * @param date Day of completion
+     * @return The removed task, or null if there was none
+     */
+    @Override
+    public Task removeLast(String user, LocalDate date) {
+        if (!isCurrentMonth(date)) {
+            indexGuard.writeLock().lock();
+            try {
+                pagedMonth = null;
+                TaskIndex tasks = monthIndex(YearMonth.from(date));
+                Task last = tasks.findLast(user, date);
+                if (last != null) {
+                    tasks.remove(last);
+                    try {
+                        persistRemoved(tasks, last);
+                    } catch (UncheckedIOException e) {
+                        tasks.add(last);
+                        throw e;
+                    }
+                }
+                return last;
+            } finally {
+                indexGuard.writeLock().unlock();
+            }
+        }
+        TaskIndex tasks;
+        Task last;
+        indexGuard.readLock().lock();
+        try {
+            tasks = index(date);
+            ReentrantLock lock = lockFor(user);
+            lock.lock();
+            try {
+                last = tasks.findLast(user, date);
+                if (last == null) {
+                    return null;
+                }
+                tasks.remove(last);
+                if (journalMode) {
+                    try {
+                        appendToJournal(tasks, TaskJournal.Entry.removed(last));
+                    } catch (UncheckedIOException e) {
+                        tasks.add(last);
+                        throw e;
+                    }
+                    return last;
+                }
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            indexGuard.readLock().unlock();
+        }
+        try {
+            saveTasks(tasks);
+        } catch (UncheckedIOException e) {
+            ReentrantLock lock = lockFor(user);
+            lock.lock();
+            try {
+                tasks.add(last);
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+        return last;
+    }
+
+    /**
+     * Persists a record removed from a month index.
+     * @param tasks Index the record was removed from
+     * @param record Removed record
+     */
+    private void persistRemoved(TaskIndex tasks, Task record) {
+        if (journalMode) {
+            appendToJournal(tasks, TaskJournal.Entry.removed(record));
+        } else {
+            saveTasks(tasks);
+        }
+    }
+
+    /**
+     * Background compaction of journals into the monthly JSON files.
+     * Journals of past months are always compacted, the current month's journal only once it
+     * grows over the configured threshold, so appends stay cheap while reads don't replay too much.
+     */
+    @Scheduled(fixedDelayString = "${taskapp.storage.journal.compact-interval-ms:60000}")
+    @Override
+    public void compactJournals() {
+        if (journalMode) {
+            compactAll(false);
+        }
+    }
+
+    /**
+     * Compacts every journal found in the tasks directory.
+     * @param force true to compact the current month regardless of the journal size
+     */
+    private synchronized void compactAll(boolean force) {
+        String current = getFileName();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get(directory),
+                "tasks_*{" + TaskJournal.JOURNAL_SUFFIX + "," + TaskJournal.SEALED_SUFFIX + "}")) {
+            Set<String> snapshots = new TreeSet<>();
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                String baseName = name.substring(0, name.indexOf('.'));
+                snapshots.add(directory + File.separator + baseName + ".json");
+            }
+            for (String fileName : snapshots) {
+                TaskJournal journal = journals.computeIfAbsent(fileName, name -> new TaskJournal(Paths.get(name)));
+                if (force || !fileName.equals(current) || journal.size() >= compactThresholdBytes) {
+                    compact(journal);
+                }
+                if (!fileName.equals(current)) {
+                    journals.remove(fileName);
+                    journal.close();
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Journal compaction failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Folds the journal into its monthly file: seals it, writes snapshot plus sealed records to a temporary file
+     * and atomically replaces the monthly file with it. Appends keep going to a fresh journal meanwhile.
+     * @param journal Journal to compact
+     */
+    private void compact(TaskJournal journal) throws IOException {
+        if (!journal.seal()) {
+            return;
+        }
+        Path snapshotFile = journal.getSnapshotFile();
+        List<Task> tasks = loadSnapshot(snapshotFile.toString());
+        TaskJournal.replayFile(journal.getSealedFile(), tasks);
+        Path compacted = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        TaskCodec.writeArray(compacted, tasks);
+        indexGuard.writeLock().lock();
+        try {
+            journal.completeCompaction(compacted);
+            TaskIndex current = index;
+            if (current != null && snapshotFile.toString().equals(current.getFileName())) {
+                indexStamp = FileStamp.of(snapshotFile);
+            }
+        } finally {
+            indexGuard.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the archive of a closed month if it is the month's only data, so it can be queried directly.
+     * @param month Month to read
+     * @return The archive, or null if the month is current, not archived or has newer changes
+     */
+    private MonthArchive readableArchive(YearMonth month) {
+        if (month.equals(YearMonth.now())) {
+            return null;
+        }
+        String fileName = getFileName(month.atDay(1));
+        return hasJournal(fileName) ? null : archiveFor(fileName);
+    }
+
+    /**
+     * Returns the archive replacing a monthly JSON file, mapping it on first use.
+     * An existing JSON file always takes precedence, it holds changes made after the month was archived.
+     * @param fileName Path of the monthly JSON file
+     * @return The archive, or null if there is none or the JSON file exists
+     */
+    private MonthArchive archiveFor(String fileName) {
+        if (Files.exists(Paths.get(fileName))) {
+            return null;
+        }
+        MonthArchive archive = archives.get(fileName);
+        if (archive != null) {
+            return archive;
+        }
+        Path archivePath = archivePath(fileName);
+        if (!Files.exists(archivePath)) {
+            return null;
+        }
+        try {
+            archive = MonthArchive.open(archivePath);
+            archives.put(fileName, archive);
+            return archive;
+        } catch (IOException e) {
+            System.err.println("Failed to open archive " + archivePath + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Path archivePath(String fileName) {
+        return Paths.get(fileName.replace(".json", MonthArchive.SUFFIX));
+    }
+
+    private static boolean hasJournal(String fileName) {
+        String baseName = fileName.replace(".json", "");
+        return Files.exists(Paths.get(baseName + TaskJournal.JOURNAL_SUFFIX))
+                || Files.exists(Paths.get(baseName + TaskJournal.SEALED_SUFFIX));
+    }
+
+    /**
+     * Converts the JSON files of closed months into read-only columnar archives (tasks_YYYY_MM.archive)
+     * and deletes the JSON files. Runs at startup and periodically, so a month is archived shortly
+     * after the rollover to the next one. Months with pending journal records are skipped until compacted.
+     * A later write to an archived month recreates its JSON file, which is then archived again.
+     */
+    @Scheduled(fixedDelayString = "${taskapp.storage.archive.interval-ms:60000}")
+    @Override
+    public void archiveClosedMonths() {
+        if (!archiveEnabled) {
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get(directory), "tasks_*.json")) {
+            for (Path path : stream) {
+                String fileName = directory + File.separator + path.getFileName();
+                YearMonth month;
+                try {
+                    month = YearMonth.parse(path.getFileName().toString().substring(6, 13), MONTH_FORMATTER);
+                } catch (RuntimeException e) {
+                    continue;
+                }
+                if (month.isBefore(current)) {
+                    archive(fileName, month);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Archiving closed months failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Archives one closed month under the write lock, which also serializes writes to other months.
+     * @param fileName Path of the monthly JSON file
+     * @param month Month stored in the file
+     */
+    private void archive(String fileName, YearMonth month) throws IOException {
+        indexGuard.writeLock().lock();
+        try {
+            if (!Files.exists(Paths.get(fileName)) || hasJournal(fileName)) {
+                return;
+            }
+            TaskIndex tasks = loadIndex(fileName);
+            MonthArchive.write(archivePath(fileName), month, tasks.all());
+            archives.remove(fileName);
+            Files.delete(Paths.get(fileName));
+            System.out.println("Archived " + fileName + " (" + tasks.all().size() + " tasks)");
+        } finally {
+            indexGuard.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Creates a repository with the same write mode and archive settings in the tenant's subdirectory (tasks/&lt;tenant&gt;).
+     */
+    @Override
+    public TaskRepository forTenant(String tenant) {
+        return new JsonTaskRepository(directory + File.separator + tenant, journalMode ? WRITE_MODE_JOURNAL : WRITE_MODE_SNAPSHOT,
+                compactThresholdBytes, archiveEnabled);
+    }
+
+    /**
+     * Flushes and closes open journals on shutdown.
+     */
+    @PreDestroy
+    @Override
+    public void close() {
+        for (TaskJournal journal : journals.values()) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close journal: " + e.getMessage());
+            }
+        }
+    }
+
+}
+
+
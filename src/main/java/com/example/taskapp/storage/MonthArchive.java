@@ -0,0 +1,263 @@
+package com.example.taskapp.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Read-only, memory-mapped columnar archive of one closed month (tasks_YYYY_MM.archive).
+ * Users and task names are stored once in dictionaries, records as three int columns
+ * (user id, day of month, task id) in completion order, followed by a per-user offset table
+ * pointing into a list of record positions grouped by user.
+ * The columns are read directly from the mapped file, only the dictionaries are decoded on open.
+ * <pre>
+ * int magic, int year, int month, int records
+ * int users, users × (int length, UTF-8 bytes)
+ * int tasks, tasks × (int length, UTF-8 bytes)
+ * int[records] user, int[records] day, int[records] task
+ * int[users + 1] user offsets, int[records] record positions grouped by user
+ * </pre>
+ */
+final class MonthArchive {
+
+    static final String SUFFIX = ".archive";
+    private static final int MAGIC = 0x544B4131;
+
+    private final YearMonth month;
+    private final String[] users;
+    private final String[] taskNames;
+    private final Map<String, Integer> userIds;
+    private final IntBuffer userColumn;
+    private final IntBuffer dayColumn;
+    private final IntBuffer taskColumn;
+    private final IntBuffer userOffsets;
+    private final IntBuffer userRecords;
+
+    private MonthArchive(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 24 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a task archive");
+        }
+        this.month = YearMonth.of(buffer.getInt(), buffer.getInt());
+        int records = buffer.getInt();
+        this.users = readDictionary(buffer, buffer.getInt());
+        int taskCount = buffer.getInt();
+        this.taskNames = readDictionary(buffer, taskCount);
+        this.userIds = new HashMap<>();
+        for (int i = 0; i < users.length; i++) {
+            userIds.put(users[i], i);
+        }
+        this.userColumn = column(buffer, records);
+        this.dayColumn = column(buffer, records);
+        this.taskColumn = column(buffer, records);
+        this.userOffsets = column(buffer, users.length + 1);
+        this.userRecords = column(buffer, records);
+    }
+
+    private static String[] readDictionary(ByteBuffer buffer, int count) {
+        String[] entries = new String[count];
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            entries[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return entries;
+    }
+
+    private static IntBuffer column(ByteBuffer buffer, int length) throws IOException {
+        if (buffer.remaining() < length * Integer.BYTES) {
+            throw new IOException("Truncated task archive");
+        }
+        IntBuffer column = buffer.slice().limit(length * Integer.BYTES).asIntBuffer();
+        buffer.position(buffer.position() + length * Integer.BYTES);
+        return column;
+    }
+
+    /**
+     * Maps an archive file into memory.
+     * @param file Archive file
+     * @return Opened archive
+     * @throws IOException if the file can't be read or is not a valid archive
+     */
+    static MonthArchive open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MonthArchive(buffer);
+        }
+    }
+
+    /**
+     * Writes the tasks of one month as an archive, through a temporary file that is synced
+     * and atomically moved into place.
+     * @param file Archive file to create or replace
+     * @param month Month the tasks belong to
+     * @param tasks Tasks in completion order
+     * @throws IOException if the archive can't be written
+     */
+    static void write(Path file, YearMonth month, Collection<Task> tasks) throws IOException {
+        Map<String, Integer> userIds = new LinkedHashMap<>();
+        Map<String, Integer> taskIds = new LinkedHashMap<>();
+        List<List<Integer>> byUser = new ArrayList<>();
+        int[] userColumn = new int[tasks.size()];
+        int[] dayColumn = new int[tasks.size()];
+        int[] taskColumn = new int[tasks.size()];
+        int position = 0;
+        for (Task task : tasks) {
+            int user = userIds.computeIfAbsent(task.user(), key -> userIds.size());
+            if (user == byUser.size()) {
+                byUser.add(new ArrayList<>());
+            }
+            byUser.get(user).add(position);
+            userColumn[position] = user;
+            dayColumn[position] = task.date().getDayOfMonth();
+            taskColumn[position] = taskIds.computeIfAbsent(task.task(), key -> taskIds.size());
+            position++;
+        }
+        byte[][] userBytes = encode(userIds.keySet());
+        byte[][] taskBytes = encode(taskIds.keySet());
+        int size = 6 * Integer.BYTES + dictionarySize(userBytes) + dictionarySize(taskBytes)
+                + (4 * tasks.size() + userIds.size() + 1) * Integer.BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).putInt(month.getYear()).putInt(month.getMonthValue()).putInt(tasks.size());
+        buffer.putInt(userBytes.length);
+        putDictionary(buffer, userBytes);
+        buffer.putInt(taskBytes.length);
+        putDictionary(buffer, taskBytes);
+        for (int value : userColumn) {
+            buffer.putInt(value);
+        }
+        for (int value : dayColumn) {
+            buffer.putInt(value);
+        }
+        for (int value : taskColumn) {
+            buffer.putInt(value);
+        }
+        int offset = 0;
+        for (List<Integer> positions : byUser) {
+            buffer.putInt(offset);
+            offset += positions.size();
+        }
+        buffer.putInt(offset);
+        for (List<Integer> positions : byUser) {
+            for (int record : positions) {
+                buffer.putInt(record);
+            }
+        }
+        buffer.flip();
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        TaskJournal.syncDirectory(file);
+    }
+
+    private static byte[][] encode(Set<String> entries) {
+        byte[][] encoded = new byte[entries.size()][];
+        int i = 0;
+        for (String entry : entries) {
+            encoded[i++] = entry.getBytes(StandardCharsets.UTF_8);
+        }
+        return encoded;
+    }
+
+    private static int dictionarySize(byte[][] entries) {
+        int size = 0;
+        for (byte[] entry : entries) {
+            size += Integer.BYTES + entry.length;
+        }
+        return size;
+    }
+
+    private static void putDictionary(ByteBuffer buffer, byte[][] entries) {
+        for (byte[] entry : entries) {
+            buffer.putInt(entry.length).put(entry);
+        }
+    }
+
+    YearMonth getMonth() {
+        return month;
+    }
+
+    /**
+     * @return Number of records in the archive
+     */
+    int size() {
+        return userColumn.limit();
+    }
+
+    /**
+     * Decodes one record. User and task strings are shared with the dictionaries.
+     * @param position Position of the record in completion order
+     * @return The record as a task
+     */
+    Task get(int position) {
+        return new Task(users[userColumn.get(position)],
+                month.atDay(dayColumn.get(position)),
+                taskNames[taskColumn.get(position)]);
+    }
+
+    /**
+     * @return All records in completion order
+     */
+    List<Task> all() {
+        List<Task> tasks = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            tasks.add(get(i));
+        }
+        return tasks;
+    }
+
+    /**
+     * Reads the records of one user through the per-user offset table, without scanning other users.
+     * @param user Email address of the user
+     * @return The user's records in completion order
+     */
+    List<Task> forUser(String user) {
+        Integer id = userIds.get(user);
+        if (id == null) {
+            return new ArrayList<>();
+        }
+        int from = userOffsets.get(id);
+        int to = userOffsets.get(id + 1);
+        List<Task> tasks = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            tasks.add(get(userRecords.get(i)));
+        }
+        return tasks;
+    }
+
+    /**
+     * @param user Email address of the user
+     * @param date Day of completion
+     * @return The user's records of that day in completion order
+     */
+    List<Task> forUserAndDate(String user, LocalDate date) {
+        List<Task> tasks = new ArrayList<>();
+        Integer id = userIds.get(user);
+        if (id == null || !YearMonth.from(date).equals(month)) {
+            return tasks;
+        }
+        int day = date.getDayOfMonth();
+        for (int i = userOffsets.get(id); i < userOffsets.get(id + 1); i++) {
+            int position = userRecords.get(i);
+            if (dayColumn.get(position) == day) {
+                tasks.add(get(position));
+            }
+        }
+        return tasks;
+    }
+}
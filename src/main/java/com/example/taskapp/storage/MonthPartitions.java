@@ -0,0 +1,60 @@
+package com.example.taskapp.storage;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Query layer treating the monthly partitions of a {@link TaskRepository} as one dataset.
+ * Partitions outside of the requested date range are pruned before anything is read,
+ * the remaining ones are scanned in parallel and their results are merged in month order.
+ */
+class MonthPartitions {
+
+    private final TaskRepository repository;
+
+    MonthPartitions(TaskRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Returns the stored months overlapping a date range.
+     * @param from First day of the range, null for no lower bound
+     * @param to Last day of the range, null for no upper bound
+     * @return Months in ascending order
+     */
+    List<YearMonth> prune(LocalDate from, LocalDate to) {
+        YearMonth first = from != null ? YearMonth.from(from) : null;
+        YearMonth last = to != null ? YearMonth.from(to) : null;
+        return repository.months().stream()
+                .filter(month -> first == null || !month.isBefore(first))
+                .filter(month -> last == null || !month.isAfter(last))
+                .toList();
+    }
+
+    /**
+     * Scans the given months in parallel and concatenates the results in month order.
+     * @param months Months to scan, ascending
+     * @param scan Query of one month
+     * @return Results of all months, oldest month first
+     */
+    <T> List<T> scan(List<YearMonth> months, Function<YearMonth, List<T>> scan) {
+        return months.parallelStream()
+                .map(scan)
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    /**
+     * Streams the given months one after another, opening each month's stream only when it is reached
+     * and closing it when it is exhausted, so memory stays bounded by one partition.
+     * @param months Months to stream, ascending
+     * @param stream Stream of one month
+     * @return Concatenated stream, oldest month first
+     */
+    <T> Stream<T> stream(List<YearMonth> months, Function<YearMonth, Stream<T>> stream) {
+        return months.stream().flatMap(stream);
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.taskapp.storage;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Repository over all partitions of a partitioned deployment, see {@link Partitioning}.
+ * Calls for one user are routed to the partition owning the user. Calls over all users are scattered
+ * to every partition in parallel and the results are gathered; since every user lives in exactly one partition,
+ * per-user grouping and order are preserved, while tasks of different users are ordered by date only.
+ */
+class PartitionedTaskRepository implements TaskRepository {
+
+    private final ConsistentHashRing ring;
+    private final Map<String, TaskRepository> partitions;
+    private final List<TaskRepository> ordered;
+    private final ExecutorService scatter;
+
+    /**
+     * @param ring Ring assigning users to nodes
+     * @param partitions Repositories keyed by node, the local one for this node
+     * @param scatter Executor running the calls of a scatter-gather
+     */
+    PartitionedTaskRepository(ConsistentHashRing ring, Map<String, TaskRepository> partitions, ExecutorService scatter) {
+        this.ring = ring;
+        this.partitions = Map.copyOf(partitions);
+        this.ordered = List.copyOf(partitions.values());
+        this.scatter = scatter;
+    }
+
+    private TaskRepository partitionFor(String user) {
+        return partitions.get(ring.ownerOf(user));
+    }
+
+    /**
+     * Runs a call on every partition in parallel.
+     * @param call Call to run
+     * @return Results in partition order
+     */
+    private <T> List<T> scatter(Function<TaskRepository, T> call) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(ordered.size());
+        for (TaskRepository partition : ordered) {
+            futures.add(CompletableFuture.supplyAsync(() -> call.apply(partition), scatter));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    @Override
+    public void save(Task task) {
+        partitionFor(task.user()).save(task);
+    }
+
+    /**
+     * Splits the batch by owning partition and stores the parts in parallel, one batch per partition.
+     */
+    @Override
+    public void saveAll(List<Task> tasks) {
+        Map<TaskRepository, List<Task>> byPartition = new LinkedHashMap<>();
+        for (Task task : tasks) {
+            byPartition.computeIfAbsent(partitionFor(task.user()), partition -> new ArrayList<>()).add(task);
+        }
+        if (byPartition.size() == 1) {
+            Map.Entry<TaskRepository, List<Task>> only = byPartition.entrySet().iterator().next();
+            only.getKey().saveAll(only.getValue());
+            return;
+        }
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (Map.Entry<TaskRepository, List<Task>> entry : byPartition.entrySet()) {
+            futures.add(CompletableFuture.runAsync(() -> entry.getKey().saveAll(entry.getValue()), scatter));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+
+    @Override
+    public Task removeLast(String user, LocalDate date) {
+        return partitionFor(user).removeLast(user, date);
+    }
+
+    @Override
+    public List<Task> findByUserAndDate(String user, LocalDate date) {
+        return partitionFor(user).findByUserAndDate(user, date);
+    }
+
+    @Override
+    public List<Task> findByUser(String user, YearMonth month) {
+        return partitionFor(user).findByUser(user, month);
+    }
+
+    @Override
+    public Map<String, List<Task>> findAllByUser(YearMonth month) {
+        Map<String, List<Task>> merged = new HashMap<>();
+        for (Map<String, List<Task>> part : scatter(partition -> partition.findAllByUser(month))) {
+            merged.putAll(part);
+        }
+        return merged;
+    }
+
+    @Override
+    public List<Task> findAll(YearMonth month) {
+        List<Task> merged = new ArrayList<>();
+        for (List<Task> part : scatter(partition -> partition.findAll(month))) {
+            merged.addAll(part);
+        }
+        merged.sort(Comparator.comparing(Task::date));
+        return merged;
+    }
+
+    @Override
+    public List<YearMonth> months() {
+        Set<YearMonth> months = new TreeSet<>();
+        for (List<YearMonth> part : scatter(TaskRepository::months)) {
+            months.addAll(part);
+        }
+        return new ArrayList<>(months);
+    }
+
+    /**
+     * Streams the partitions one after another, each user is in exactly one of them.
+     */
+    @Override
+    public Stream<Task> streamGroupedByUser(YearMonth month) {
+        return ordered.stream().flatMap(partition -> partition.streamGroupedByUser(month));
+    }
+
+    @Override
+    public Stream<Task> streamByUser(String user, YearMonth month) {
+        return partitionFor(user).streamByUser(user, month);
+    }
+
+    /**
+     * Pages through the owning partition for a user query, otherwise through the partitions one after another.
+     * The cursor is the partition index followed by the partition's own cursor.
+     */
+    @Override
+    public TaskPage findPage(TaskQuery query) {
+        if (query.user() != null) {
+            return partitionFor(query.user()).findPage(query);
+        }
+        int index = 0;
+        String cursor = null;
+        if (query.cursor() != null) {
+            int separator = query.cursor().indexOf(':');
+            try {
+                index = Integer.parseInt(query.cursor().substring(0, separator));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + query.cursor(), e);
+            }
+            if (index < 0 || index >= ordered.size()) {
+                throw new IllegalArgumentException("Invalid cursor: " + query.cursor());
+            }
+            cursor = query.cursor().length() > separator + 1 ? query.cursor().substring(separator + 1) : null;
+        }
+        while (true) {
+            TaskPage page = ordered.get(index).findPage(new TaskQuery(query.from(), query.to(), null, cursor, query.size()));
+            if (page.nextCursor() != null) {
+                return new TaskPage(page.tasks(), index + ":" + page.nextCursor());
+            }
+            if (index + 1 == ordered.size()) {
+                return new TaskPage(page.tasks(), null);
+            }
+            if (!page.tasks().isEmpty()) {
+                return new TaskPage(page.tasks(), (index + 1) + ":");
+            }
+            index++;
+            cursor = null;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.taskapp.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Shared-nothing partitioned deployment, enabled by taskapp.cluster.enabled=true.
+ * Every node listed in taskapp.cluster.nodes owns the users that the {@link ConsistentHashRing} assigns to it
+ * and keeps them in its own local storage (its configured {@link TaskRepository}, e.g. its own tasks directory).
+ * {@link UserTask} works with the repository returned by {@link #partitioned(TaskRepository)}:
+ * calls for one user go to the owning node, calls over all users are sent to every node in parallel and merged.
+ * Every tenant is partitioned the same way, the tenant name is passed along with each internal request.
+ * Nodes talk to each other over the internal partition endpoints, authenticated by taskapp.cluster.secret.
+ */
+@Component
+@ConditionalOnProperty(name = "taskapp.cluster.enabled", havingValue = "true")
+public class Partitioning {
+
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+
+    private final List<String> nodes;
+    private final String self;
+    private final byte[] secret;
+    private final ConsistentHashRing ring;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ExecutorService scatter = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * @param nodes Comma separated base URLs of all nodes, the same list on every node
+     * @param self Base URL of this node as it appears in the list
+     * @param secret Secret shared by the nodes for the internal partition endpoints
+     * @param objectMapper JSON mapper for the partition requests
+     */
+    public Partitioning(@Value("${taskapp.cluster.nodes}") String nodes,
+                        @Value("${taskapp.cluster.self}") String self,
+                        @Value("${taskapp.cluster.secret}") String secret,
+                        ObjectMapper objectMapper) {
+        List<String> nodeList = new ArrayList<>();
+        for (String node : nodes.split(",")) {
+            if (!node.isBlank()) {
+                nodeList.add(node.trim());
+            }
+        }
+        Collections.sort(nodeList);
+        if (!nodeList.contains(self)) {
+            throw new IllegalArgumentException("taskapp.cluster.self " + self + " is not in taskapp.cluster.nodes");
+        }
+        if (secret.isBlank()) {
+            throw new IllegalArgumentException("taskapp.cluster.secret must be set in cluster mode");
+        }
+        this.nodes = List.copyOf(nodeList);
+        this.self = self;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.ring = new ConsistentHashRing(this.nodes);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Wraps the node-local repository into a repository over all partitions.
+     * @param local Repository of this node's partition
+     * @return Repository routing to the owning partitions
+     */
+    public TaskRepository partitioned(TaskRepository local) {
+        return partitioned(local, "");
+    }
+
+    /**
+     * Wraps the node-local repository of a tenant into a repository over the tenant's partitions on all nodes.
+     * @param local Repository of this node's partition of the tenant
+     * @param tenant Tenant name, empty for the default tenant
+     * @return Repository routing to the owning partitions
+     */
+    public TaskRepository partitioned(TaskRepository local, String tenant) {
+        Map<String, TaskRepository> partitions = new LinkedHashMap<>();
+        for (String node : nodes) {
+            partitions.put(node, node.equals(self) ? local
+                    : new RemoteTaskRepository(node, tenant, new String(secret, StandardCharsets.UTF_8), httpClient, objectMapper));
+        }
+        return new PartitionedTaskRepository(ring, partitions, scatter);
+    }
+
+    /**
+     * @param user Email address of the user
+     * @return true if this node owns the user's tasks
+     */
+    public boolean isOwner(String user) {
+        return self.equals(ring.ownerOf(user));
+    }
+
+    /**
+     * Checks the secret sent by another node.
+     * @param presented Value of the X-Cluster-Secret header
+     * @return true if it matches the configured secret
+     */
+    public boolean isAuthorized(String presented) {
+        return presented != null && MessageDigest.isEqual(secret, presented.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Stops the scatter-gather executor.
+     */
+    @PreDestroy
+    public void close() {
+        scatter.shutdown();
+    }
+}
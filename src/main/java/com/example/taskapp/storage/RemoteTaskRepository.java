@@ -0,0 +1,155 @@
+package com.example.taskapp.storage;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Repository of a partition owned by another node, accessed through that node's internal partition endpoints
+ * (/internal/partition/..., see {@link Partitioning}). Streams are served from a fully read response.
+ * Requests for a tenant other than the default one carry the tenant name as the "tenant" query parameter.
+ */
+class RemoteTaskRepository implements TaskRepository {
+
+    static final String BASE_PATH = "/internal/partition";
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final String node;
+    private final String tenant;
+    private final String secret;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param node Base URL of the owning node
+     * @param tenant Tenant name, empty for the default tenant
+     * @param secret Secret shared by the nodes
+     * @param httpClient Client shared by all remote partitions
+     * @param objectMapper JSON mapper with Java time support
+     */
+    RemoteTaskRepository(String node, String tenant, String secret, HttpClient httpClient, ObjectMapper objectMapper) {
+        this.node = node;
+        this.tenant = tenant;
+        this.secret = secret;
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void save(Task task) {
+        saveAll(List.of(task));
+    }
+
+    @Override
+    public void saveAll(List<Task> tasks) {
+        send("POST", "/tasks", tasks, null);
+    }
+
+    @Override
+    public Task removeLast(String user, LocalDate date) {
+        return send("POST", "/remove-last?user=" + encode(user) + "&date=" + date, null, new TypeReference<Task>() { });
+    }
+
+    @Override
+    public List<Task> findByUserAndDate(String user, LocalDate date) {
+        return send("GET", "/day?user=" + encode(user) + "&date=" + date, null, new TypeReference<List<Task>>() { });
+    }
+
+    @Override
+    public List<Task> findByUser(String user, YearMonth month) {
+        return send("GET", "/month?user=" + encode(user) + "&month=" + month, null, new TypeReference<List<Task>>() { });
+    }
+
+    @Override
+    public Map<String, List<Task>> findAllByUser(YearMonth month) {
+        return send("GET", "/by-user?month=" + month, null, new TypeReference<Map<String, List<Task>>>() { });
+    }
+
+    @Override
+    public List<Task> findAll(YearMonth month) {
+        return send("GET", "/all?month=" + month, null, new TypeReference<List<Task>>() { });
+    }
+
+    @Override
+    public List<YearMonth> months() {
+        return send("GET", "/months", null, new TypeReference<List<YearMonth>>() { });
+    }
+
+    @Override
+    public Stream<Task> streamGroupedByUser(YearMonth month) {
+        return findAllByUser(month).values().stream().flatMap(List::stream);
+    }
+
+    @Override
+    public Stream<Task> streamByUser(String user, YearMonth month) {
+        return findByUser(user, month).stream();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the owning node rejects the cursor
+     */
+    @Override
+    public TaskPage findPage(TaskQuery query) {
+        return send("POST", "/page", query, new TypeReference<TaskPage>() { });
+    }
+
+    /**
+     * Sends one request to the owning node.
+     * @param method HTTP method
+     * @param path Path and query below /internal/partition
+     * @param body Request body sent as JSON, or null
+     * @param type Type of the JSON response, or null to ignore the response
+     * @return Parsed response, null for 204 No Content
+     */
+    private <T> T send(String method, String path, Object body, TypeReference<T> type) {
+        try {
+            String uri = node + BASE_PATH + path;
+            if (!tenant.isEmpty()) {
+                uri += (path.indexOf('?') < 0 ? "?" : "&") + "tenant=" + encode(tenant);
+            }
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(uri))
+                    .timeout(TIMEOUT)
+                    .header(Partitioning.SECRET_HEADER, secret)
+                    .header("Accept", "application/json");
+            if (body != null) {
+                request.header("Content-Type", "application/json")
+                        .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+            } else {
+                request.method(method, HttpRequest.BodyPublishers.noBody());
+            }
+            HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() == 400) {
+                throw new IllegalArgumentException("Partition " + node + " rejected " + path);
+            }
+            if (response.statusCode() / 100 != 2) {
+                throw new IllegalStateException("Partition " + node + " answered " + response.statusCode() + " to " + path);
+            }
+            if (type == null || response.statusCode() == 204 || response.body().length == 0) {
+                return null;
+            }
+            return objectMapper.readValue(response.body(), type);
+        } catch (IOException e) {
+            throw new IllegalStateException("Partition " + node + " is not reachable", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calling partition " + node, e);
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
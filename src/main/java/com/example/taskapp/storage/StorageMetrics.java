@@ -0,0 +1,92 @@
+package com.example.taskapp.storage;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Meters of the storage hot paths, exported through Actuator (/actuator/prometheus).
+ * Meters are registered in the global registry, to which Spring Boot adds its own registry,
+ * so repositories created outside of the application context (tests, benchmarks) work unchanged.
+ */
+final class StorageMetrics {
+
+    static final String JSON = "json";
+    static final String H2 = "h2";
+
+    private StorageMetrics() {
+    }
+
+    /**
+     * Duration of loading a whole month from disk, including journal replay.
+     * @param backend Storage backend tag
+     * @return Timer of month loads
+     */
+    static Timer load(String backend) {
+        return Timer.builder("taskapp.storage.load")
+                .description("Time to load a month of tasks from storage")
+                .tag("backend", backend)
+                .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * Duration of parsing a monthly file.
+     * @return Timer of JSON parsing
+     */
+    static Timer parse() {
+        return Timer.builder("taskapp.storage.parse")
+                .description("Time to parse a monthly task file")
+                .tag("backend", JSON)
+                .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * Duration of persisting one change, including waiting for the group commit.
+     * @param backend Storage backend tag
+     * @param mode Write mode (snapshot, journal or insert)
+     * @return Timer of writes
+     */
+    static Timer save(String backend, String mode) {
+        return Timer.builder("taskapp.storage.save")
+                .description("Time to persist a task change")
+                .tags("backend", backend, "mode", mode)
+                .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * Duration of writing the write-behind buffer to the backend.
+     * @return Timer of write-behind flushes
+     */
+    static Timer flush() {
+        return Timer.builder("taskapp.storage.write-behind.flush")
+                .description("Time to write the buffered completions to the backend")
+                .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * Size of the monthly files when they are read.
+     * @return Summary of file sizes in bytes
+     */
+    static DistributionSummary fileSize() {
+        return DistributionSummary.builder("taskapp.storage.file.size")
+                .description("Size of a monthly task file when it is loaded")
+                .baseUnit("bytes")
+                .tag("backend", JSON)
+                .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * Records a query's number of scanned records.
+     * @param backend Storage backend tag
+     * @param query Name of the repository method
+     * @param records Records the query had to look at
+     */
+    static void scanned(String backend, String query, long records) {
+        DistributionSummary.builder("taskapp.storage.records.scanned")
+                .description("Records scanned by one repository query")
+                .baseUnit("records")
+                .tags("backend", backend, "query", query)
+                .register(Metrics.globalRegistry)
+                .record(records);
+    }
+}
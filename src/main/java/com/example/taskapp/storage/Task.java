@@ -1,16 +1,12 @@
 package com.example.taskapp.storage;
 
-public class Task {
-    /*private String title;
-
-
-    public Task(String title) {
-        this.title = title;
-    }
-
-    public String getTitle() { return title; }
-    public void setTitle(String title) { this.title = title; }
-
-
-     */
+import java.time.LocalDate;
+
+/**
+ * One completed task as stored in the monthly task files.
+ * @param user Email address of the user who completed the task
+ * @param date Date of completion
+ * @param task Description of the completed task
+ */
+public record Task(String user, LocalDate date, String task) {
 }
@@ -0,0 +1,202 @@
+package com.example.taskapp.storage;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming JSON encoding of tasks for the monthly files and the journal, built on Jackson's token parser
+ * and generator. Records are decoded straight into {@link Task} without an intermediate DOM.
+ * All files are read and written as UTF-8 bytes, independent of the platform charset.
+ * Repeated user emails, task names and dates within one read share a single instance.
+ */
+final class TaskCodec {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private TaskCodec() {
+    }
+
+    /**
+     * Reads a monthly file: a JSON array of objects with user, date and task.
+     * @param file Monthly file
+     * @return Tasks in file order, empty for an empty file
+     * @throws IOException if the file can't be read or is not a JSON array of tasks
+     */
+    static List<Task> readArray(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return readArray(in);
+        }
+    }
+
+    /**
+     * Reads a JSON array of tasks from UTF-8 encoded bytes.
+     * @param in Input, not closed
+     * @return Tasks in input order
+     * @throws IOException if the input is not a JSON array of tasks; an element that is not a task object
+     *         or a truncated array is reported as a {@link JsonParseException}, so the file is treated as damaged
+     */
+    static List<Task> readArray(InputStream in) throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        try (JsonParser parser = FACTORY.createParser(in)) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return tasks;
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected a JSON array of tasks");
+            }
+            Decoder decoder = new Decoder();
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                tasks.add(decoder.read(parser).task());
+            }
+            if (token != JsonToken.END_ARRAY) {
+                throw new JsonParseException(parser, "Expected a task object or the end of the array");
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Writes tasks as a JSON array with an indentation of 2 spaces and forces the file to disk,
+     * so it can be renamed over a monthly file without risking an empty file after a crash.
+     * @param file File to create or replace
+     * @param tasks Tasks in completion order
+     * @throws IOException if the file can't be written
+     */
+    static void writeArray(Path file, Collection<Task> tasks) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             JsonGenerator generator = FACTORY.createGenerator(Channels.newOutputStream(channel), JsonEncoding.UTF8)
+                     .useDefaultPrettyPrinter()) {
+            generator.writeStartArray();
+            for (Task task : tasks) {
+                writeTask(generator, task, false);
+            }
+            generator.writeEndArray();
+            generator.flush();
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Decodes one journal line.
+     * @param line JSON object with user, date, task and an optional "op": "remove"
+     * @return The journal entry
+     * @throws IOException if the line is not a complete task object
+     */
+    static TaskJournal.Entry readEntry(String line) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(line.getBytes(StandardCharsets.UTF_8))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object");
+            }
+            return new Decoder().read(parser);
+        }
+    }
+
+    /**
+     * Encodes journal entries as UTF-8 lines, one JSON object per line.
+     * @param entries Entries to encode
+     * @return Bytes of all lines including their line breaks
+     */
+    static byte[] writeEntries(List<TaskJournal.Entry> entries) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(entries.size() * 96);
+        for (TaskJournal.Entry entry : entries) {
+            try (JsonGenerator generator = FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+                writeTask(generator, entry.task(), entry.removal());
+            }
+            out.write('\n');
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Creates a generator writing tasks as NDJSON lines, see {@link #writeLine(JsonGenerator, Task)}.
+     * @param out Output, flushed but not closed when the generator is closed
+     * @return Generator encoding UTF-8
+     */
+    static JsonGenerator lineWriter(OutputStream out) throws IOException {
+        return FACTORY.createGenerator(out, JsonEncoding.UTF8)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator(null);
+    }
+
+    /**
+     * Writes one task as a JSON object followed by a line break, in the format of the journal lines.
+     * @param generator Generator created by {@link #lineWriter(OutputStream)}
+     * @param task Task to write
+     */
+    static void writeLine(JsonGenerator generator, Task task) throws IOException {
+        writeTask(generator, task, false);
+        generator.writeRaw('\n');
+    }
+
+    private static void writeTask(JsonGenerator generator, Task task, boolean removal) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("user", task.user());
+        generator.writeStringField("date", task.date().toString());
+        generator.writeStringField("task", task.task());
+        if (removal) {
+            generator.writeStringField("op", TaskJournal.OP_REMOVE);
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Decodes task objects, sharing repeated strings and dates across the objects of one read.
+     */
+    private static final class Decoder {
+
+        private final Map<String, String> strings = new HashMap<>();
+        private final Map<String, LocalDate> dates = new HashMap<>();
+
+        /**
+         * Reads the fields of an object whose START_OBJECT token is current, up to its END_OBJECT.
+         */
+        TaskJournal.Entry read(JsonParser parser) throws IOException {
+            String user = null;
+            LocalDate date = null;
+            String task = null;
+            boolean removal = false;
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "user" -> user = strings.computeIfAbsent(parser.getText(), text -> text);
+                    case "date" -> date = dates.computeIfAbsent(parser.getText(), LocalDate::parse);
+                    case "task" -> task = strings.computeIfAbsent(parser.getText(), text -> text);
+                    case "op" -> removal = TaskJournal.OP_REMOVE.equals(parser.getText());
+                    default -> {
+                        if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+            }
+            if (parser.currentToken() != JsonToken.END_OBJECT || user == null || date == null || task == null) {
+                throw new IOException("Incomplete task record");
+            }
+            return new TaskJournal.Entry(new Task(user, date, task), removal);
+        }
+    }
+}
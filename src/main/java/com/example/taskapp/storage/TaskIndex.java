@@ -0,0 +1,233 @@
+package com.example.taskapp.storage;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Resident index over the records of one monthly file.
+ * Keeps the records in completion order plus lookups by user and by user and date,
+ * so that reads don't have to parse and scan the monthly file.
+ * Every record gets the next position of an append-only slot log; a removed record leaves an empty slot behind,
+ * so removal takes constant time and positions stay stable while the index is in memory.
+ * The per-user data of one user must only be accessed while holding that user's lock
+ * (see {@link JsonTaskRepository}'s lockFor), different users can be read and written concurrently.
+ */
+class TaskIndex {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    private final String fileName;
+    private final Map<String, UserTasks> users = new ConcurrentHashMap<>();
+    private final GroupCommit commit = new GroupCommit();
+
+    /**
+     * Slot log of all records in chunks of CHUNK_SIZE, an empty slot is a removed record.
+     * Appends are serialized by appendLock and published by the volatile end, readers need no lock.
+     */
+    private final List<AtomicReferenceArray<Task>> chunks = new CopyOnWriteArrayList<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private volatile int end;
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Records of a single user and their positions in the slot log.
+     */
+    private static final class UserTasks {
+        private final List<Task> all = new ArrayList<>();
+        private final List<Integer> positions = new ArrayList<>();
+        private final Map<LocalDate, List<Task>> byDate = new HashMap<>();
+    }
+
+    /**
+     * @param fileName Monthly file the indexed records belong to
+     */
+    TaskIndex(String fileName) {
+        this.fileName = fileName;
+    }
+
+    String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * @return Group commit coordinating rewrites of the monthly file
+     */
+    GroupCommit getCommit() {
+        return commit;
+    }
+
+    /**
+     * Adds a record to the end of the index.
+     * @param task Completed task
+     */
+    void add(Task task) {
+        int position;
+        appendLock.lock();
+        try {
+            position = end;
+            if (position / CHUNK_SIZE == chunks.size()) {
+                chunks.add(new AtomicReferenceArray<>(CHUNK_SIZE));
+            }
+            chunks.get(position / CHUNK_SIZE).set(position % CHUNK_SIZE, task);
+            end = position + 1;
+        } finally {
+            appendLock.unlock();
+        }
+        size.incrementAndGet();
+        UserTasks userTasks = users.computeIfAbsent(task.user(), user -> new UserTasks());
+        userTasks.all.add(task);
+        userTasks.positions.add(position);
+        userTasks.byDate.computeIfAbsent(task.date(), date -> new ArrayList<>()).add(task);
+    }
+
+    /**
+     * Returns the most recent record of a user on a given day.
+     * @param user Email address of the user
+     * @param date Day of completion
+     * @return The last record, or null if the user has no record on that day
+     */
+    Task findLast(String user, LocalDate date) {
+        List<Task> tasks = forUserAndDate(user, date);
+        return tasks.isEmpty() ? null : tasks.get(tasks.size() - 1);
+    }
+
+    /**
+     * Removes a record previously returned by the index.
+     * The record is searched from the end of its user's records, where recent completions are,
+     * and its slot is emptied in place.
+     * @param task Record to remove
+     */
+    void remove(Task task) {
+        UserTasks userTasks = users.get(task.user());
+        int index = lastIdentical(userTasks.all, task);
+        userTasks.all.remove(index);
+        int position = userTasks.positions.remove(index);
+        List<Task> dayTasks = userTasks.byDate.get(task.date());
+        dayTasks.remove(lastIdentical(dayTasks, task));
+        if (dayTasks.isEmpty()) {
+            userTasks.byDate.remove(task.date());
+        }
+        chunks.get(position / CHUNK_SIZE).set(position % CHUNK_SIZE, null);
+        size.decrementAndGet();
+    }
+
+    private static int lastIdentical(List<Task> tasks, Task task) {
+        for (int i = tasks.size() - 1; i >= 0; i--) {
+            if (tasks.get(i) == task) {
+                return i;
+            }
+        }
+        throw new NoSuchElementException("Record is not indexed: " + task);
+    }
+
+    /**
+     * @return All records in completion order, weakly consistent with concurrent writes
+     */
+    Collection<Task> all() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Task> iterator() {
+                return new Iterator<>() {
+                    private final int last = end;
+                    private int position;
+                    private Task next = advance();
+
+                    private Task advance() {
+                        while (position < last) {
+                            Task task = get(position++);
+                            if (task != null) {
+                                return task;
+                            }
+                        }
+                        return null;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return next != null;
+                    }
+
+                    @Override
+                    public Task next() {
+                        if (next == null) {
+                            throw new NoSuchElementException();
+                        }
+                        Task task = next;
+                        next = advance();
+                        return task;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size.get();
+            }
+        };
+    }
+
+    /**
+     * @return Position following the last record ever added, removed records included
+     */
+    int end() {
+        return end;
+    }
+
+    /**
+     * @param position Position in the slot log, below {@link #end()}
+     * @return The record at that position, or null if it was removed
+     */
+    Task get(int position) {
+        return chunks.get(position / CHUNK_SIZE).get(position % CHUNK_SIZE);
+    }
+
+    /**
+     * Returns positions of a user's records, for reading them from a given position on.
+     * @param user Email address of the user
+     * @param from First position of interest
+     * @param limit Maximum number of positions returned
+     * @return Ascending positions of the user's records at or after from
+     */
+    List<Integer> positionsOfUser(String user, int from, int limit) {
+        UserTasks userTasks = user != null ? users.get(user) : null;
+        if (userTasks == null) {
+            return List.of();
+        }
+        int first = Collections.binarySearch(userTasks.positions, from);
+        if (first < 0) {
+            first = -first - 1;
+        }
+        return new ArrayList<>(userTasks.positions.subList(first, Math.min(first + limit, userTasks.positions.size())));
+    }
+
+    /**
+     * @return Emails of all users with at least one indexed record
+     */
+    Set<String> users() {
+        return Collections.unmodifiableSet(users.keySet());
+    }
+
+    /**
+     * @param user Email address of the user
+     * @return Records of the user in completion order
+     */
+    List<Task> forUser(String user) {
+        UserTasks userTasks = user != null ? users.get(user) : null;
+        return userTasks != null ? userTasks.all : List.of();
+    }
+
+    /**
+     * @param user Email address of the user
+     * @param date Day of completion
+     * @return Records of the user on the given day in completion order
+     */
+    List<Task> forUserAndDate(String user, LocalDate date) {
+        UserTasks userTasks = user != null ? users.get(user) : null;
+        return userTasks != null ? userTasks.byDate.getOrDefault(date, List.of()) : List.of();
+    }
+}
@@ -0,0 +1,344 @@
+package com.example.taskapp.storage;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only journal of task mutations for one month.
+ * Every completion is written as a single line of JSON (NDJSON) to tasks_YYYY_MM.journal,
+ * so the cost of a write does not depend on how many records the month already has.
+ * Removals are written as tombstone lines with "op": "remove". Lines are encoded by {@link TaskCodec}.
+ * Concurrent writers share one fsync (group commit): the first writer waiting for durability
+ * forces the file for everyone who appended before it.
+ */
+class TaskJournal implements Closeable {
+
+    static final String JOURNAL_SUFFIX = ".journal";
+    static final String SEALED_SUFFIX = ".journal.sealed";
+    static final String OP_REMOVE = "remove";
+
+    /**
+     * One journal line: a completed task, or a tombstone removing the last equal task.
+     * @param task Task the line refers to
+     * @param removal true for a tombstone
+     */
+    record Entry(Task task, boolean removal) {
+
+        static Entry added(Task task) {
+            return new Entry(task, false);
+        }
+
+        static Entry removed(Task task) {
+            return new Entry(task, true);
+        }
+    }
+
+    private final Path file;
+    private final Path sealedFile;
+    private final Path snapshotFile;
+
+    /**
+     * Guards the channel and the journal files. A lock rather than a monitor, so that virtual threads
+     * blocked on journal I/O don't pin their carrier thread.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    private FileChannel channel;
+    private final GroupCommit commit = new GroupCommit();
+
+    /**
+     * Opens the journal belonging to the given monthly snapshot file.
+     * A sealed journal left behind by a compaction that already replaced the snapshot is removed.
+     * @param snapshotFile Path of the monthly JSON file (tasks_YYYY_MM.json)
+     */
+    TaskJournal(Path snapshotFile) {
+        this.snapshotFile = snapshotFile;
+        String baseName = snapshotFile.getFileName().toString().replace(".json", "");
+        this.file = snapshotFile.resolveSibling(baseName + JOURNAL_SUFFIX);
+        this.sealedFile = snapshotFile.resolveSibling(baseName + SEALED_SUFFIX);
+        try {
+            if (Files.exists(sealedFile) && Files.exists(snapshotFile)
+                    && Files.getLastModifiedTime(snapshotFile).compareTo(Files.getLastModifiedTime(sealedFile)) > 0) {
+                Files.delete(sealedFile);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to recover journal " + sealedFile + ": " + e.getMessage());
+        }
+    }
+
+    Path getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    Path getSealedFile() {
+        return sealedFile;
+    }
+
+    /**
+     * Appends one entry and returns once it is durable on disk.
+     * @param entry Completed task or tombstone
+     * @throws IOException if the entry cannot be written or synced
+     */
+    void append(Entry entry) throws IOException {
+        appendAll(List.of(entry));
+    }
+
+    /**
+     * Appends several entries with a single write and returns once all of them are durable,
+     * so a batch costs one fsync regardless of its size.
+     * @param entries Completed tasks or tombstones
+     * @throws IOException if the entries cannot be written or synced
+     */
+    void appendAll(List<Entry> entries) throws IOException {
+        ByteBuffer line = ByteBuffer.wrap(TaskCodec.writeEntries(entries));
+        long ticket;
+        lock.lock();
+        try {
+            if (channel == null) {
+                channel = open(file);
+            }
+            long before = channel.position();
+            try {
+                while (line.hasRemaining()) {
+                    channel.write(line);
+                }
+            } catch (IOException e) {
+                discardFrom(before);
+                throw e;
+            }
+            ticket = commit.register();
+        } finally {
+            lock.unlock();
+        }
+        commit.await(ticket, this::force);
+    }
+
+    /**
+     * Opens a journal file for appending. A torn last line left by a crash or a failed write is cut off first,
+     * otherwise the next record would be appended to it and skipped as damaged on replay.
+     * @param path Journal file, created if missing
+     * @return Channel positioned after the last complete line
+     */
+    private static FileChannel open(Path path) throws IOException {
+        FileChannel opened = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long end = lastLineEnd(opened);
+            if (end < opened.size()) {
+                System.err.println("Truncating torn journal tail in " + path);
+                opened.truncate(end);
+                opened.force(false);
+            }
+            opened.position(end);
+            return opened;
+        } catch (IOException e) {
+            opened.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @param channel Journal file
+     * @return Offset just after the last newline, 0 if the file has none
+     */
+    private static long lastLineEnd(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long end = channel.size();
+        while (end > 0) {
+            long start = Math.max(0, end - buffer.capacity());
+            buffer.clear().limit((int) (end - start));
+            while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) >= 0) {
+                // read the whole chunk
+            }
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return 0;
+    }
+
+    /**
+     * Removes the part of a batch written before a write failed, so that the journal ends with a complete line.
+     * If that fails too, the channel is closed and the tail is cut off when the journal is opened again.
+     * @param size Size of the journal before the batch
+     */
+    private void discardFrom(long size) {
+        try {
+            channel.truncate(size);
+            channel.position(size);
+        } catch (IOException e) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // the channel is dropped anyway
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * Forces the active journal to disk, called by the group commit leader outside of the append lock.
+     */
+    private void force() throws IOException {
+        FileChannel current;
+        lock.lock();
+        try {
+            current = channel;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            if (current != null) {
+                current.force(false);
+            }
+        } catch (ClosedChannelException e) {
+            // sealed concurrently, seal() forces the file before closing it
+        }
+    }
+
+    /**
+     * Replays the sealed and the active journal on top of the given snapshot.
+     * Incomplete lines at the end of the file (torn writes) are skipped.
+     * @param tasks Snapshot loaded from the monthly JSON file, modified in place
+     */
+    void replayInto(List<Task> tasks) {
+        lock.lock();
+        try {
+            replayFile(sealedFile, tasks);
+            replayFile(file, tasks);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies all records of one journal file to the given tasks.
+     * @param path Journal file, missing files are ignored
+     * @param tasks Tasks to modify in place
+     */
+    static void replayFile(Path path, List<Task> tasks) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                Entry entry;
+                try {
+                    entry = TaskCodec.readEntry(line);
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Skipping damaged journal line in " + path);
+                    continue;
+                }
+                if (entry.removal()) {
+                    int last = tasks.lastIndexOf(entry.task());
+                    if (last >= 0) {
+                        tasks.remove(last);
+                    }
+                } else {
+                    tasks.add(entry.task());
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Size of the active journal in bytes.
+     * @return number of bytes waiting for compaction
+     */
+    long size() throws IOException {
+        lock.lock();
+        try {
+            return Files.exists(file) ? Files.size(file) : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the active journal and renames it to the sealed file, so that new appends
+     * go to a fresh journal while the sealed one is being compacted.
+     * @return true if there is a sealed journal to compact
+     */
+    boolean seal() throws IOException {
+        lock.lock();
+        try {
+            if (Files.exists(sealedFile)) {
+                return true;
+            }
+            if (!Files.exists(file) || Files.size(file) == 0) {
+                return false;
+            }
+            if (channel != null) {
+                channel.force(false);
+                channel.close();
+                channel = null;
+            }
+            commit.markCommitted();
+            Files.move(file, sealedFile, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Atomically installs the compacted snapshot and drops the sealed journal it was built from.
+     * The rename is synced before the sealed journal is deleted, so a crash leaves one of the two on disk.
+     * @param compacted Temporary file containing snapshot plus sealed records, already forced to disk
+     */
+    void completeCompaction(Path compacted) throws IOException {
+        lock.lock();
+        try {
+            Files.move(compacted, snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            syncDirectory(snapshotFile);
+            Files.deleteIfExists(sealedFile);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forces the directory holding a renamed file to disk, so the rename survives a crash.
+     * Skipped on platforms that can't open directories, such as Windows.
+     * @param file File whose parent directory is synced
+     */
+    static void syncDirectory(Path file) {
+        try (FileChannel directory = FileChannel.open(file.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            // directories can't be opened on this platform
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (channel != null) {
+                channel.force(false);
+                channel.close();
+                channel = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
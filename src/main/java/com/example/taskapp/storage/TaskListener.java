@@ -0,0 +1,31 @@
+package com.example.taskapp.storage;
+
+import java.util.List;
+
+/**
+ * Callback notified by {@link UserTask} after a task change has been stored.
+ * Implementations are called on the request thread and should return quickly.
+ */
+public interface TaskListener {
+
+    /**
+     * @param task Task that has just been completed
+     */
+    void taskAdded(Task task);
+
+    /**
+     * @param task Task that has just been removed by undo
+     */
+    void taskRemoved(Task task);
+
+    /**
+     * Called once per batch of imported tasks instead of once per task.
+     * By default every task is reported as completed.
+     * @param tasks Tasks that have just been imported, possibly of past months
+     */
+    default void tasksImported(List<Task> tasks) {
+        for (Task task : tasks) {
+            taskAdded(task);
+        }
+    }
+}
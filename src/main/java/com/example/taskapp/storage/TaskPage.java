@@ -0,0 +1,11 @@
+package com.example.taskapp.storage;
+
+import java.util.List;
+
+/**
+ * One page of completed tasks.
+ * @param tasks Tasks on the page in completion order
+ * @param nextCursor Cursor of the next page, or null if this is the last page
+ */
+public record TaskPage(List<Task> tasks, String nextCursor) {
+}
@@ -0,0 +1,23 @@
+package com.example.taskapp.storage;
+
+import java.time.LocalDate;
+
+/**
+ * Query for one page of completed tasks.
+ * @param from First day of the range (inclusive)
+ * @param to Last day of the range (inclusive)
+ * @param user Email address to filter by, or null for all users
+ * @param cursor Cursor returned with the previous page, or null for the first page
+ * @param size Maximum number of tasks on the page
+ */
+public record TaskQuery(LocalDate from, LocalDate to, String user, String cursor, int size) {
+
+    /**
+     * @param task Completed task
+     * @return true if the task falls into the date range and belongs to the requested user
+     */
+    public boolean matches(Task task) {
+        return !task.date().isBefore(from) && !task.date().isAfter(to)
+                && (user == null || user.equals(task.user()));
+    }
+}
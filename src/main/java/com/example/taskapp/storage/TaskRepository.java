@@ -0,0 +1,130 @@
+package com.example.taskapp.storage;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Persistence of completed tasks used by {@link UserTask}.
+ * The implementation is selected by the property taskapp.storage.backend:
+ * "json" (default) keeps monthly JSON files, "h2" uses an embedded H2 database.
+ */
+public interface TaskRepository {
+
+    /**
+     * Stores a completed task.
+     * @param task Completed task
+     */
+    void save(Task task);
+
+    /**
+     * Stores several completed tasks with as little I/O as the backend allows,
+     * one write per affected month or one transaction.
+     * @param tasks Completed tasks, possibly of different users and months
+     */
+    void saveAll(List<Task> tasks);
+
+    /**
+     * Removes the most recently stored task of a user on a given day.
+     * @param user Email address of the user
+     * @param date Day of completion
+     * @return The removed task, or null if the user has no task on that day
+     */
+    Task removeLast(String user, LocalDate date);
+
+    /**
+     * @param user Email address of the user
+     * @param date Day of completion
+     * @return Tasks of the user on that day in completion order
+     */
+    List<Task> findByUserAndDate(String user, LocalDate date);
+
+    /**
+     * @param user Email address of the user
+     * @param month Month of completion
+     * @return Tasks of the user in that month in completion order
+     */
+    List<Task> findByUser(String user, YearMonth month);
+
+    /**
+     * @param month Month of completion
+     * @return Tasks of that month grouped by user email, each list in completion order
+     */
+    Map<String, List<Task>> findAllByUser(YearMonth month);
+
+    /**
+     * @param month Month of completion
+     * @return All tasks of that month in completion order
+     */
+    List<Task> findAll(YearMonth month);
+
+    /**
+     * Lists the partitions of the dataset: every month for which tasks may be stored.
+     * @return Months in ascending order
+     */
+    List<YearMonth> months();
+
+    /**
+     * Streams the tasks of a month without materializing the whole month for the caller.
+     * The stream may hold storage resources and must be closed.
+     * @param month Month of completion
+     * @return Tasks with all tasks of one user next to each other, each user's tasks in completion order
+     */
+    Stream<Task> streamGroupedByUser(YearMonth month);
+
+    /**
+     * Streams the tasks of one user in a month. The stream must be closed.
+     * @param user Email address of the user
+     * @param month Month of completion
+     * @return Tasks of the user in completion order
+     */
+    Stream<Task> streamByUser(String user, YearMonth month);
+
+    /**
+     * Returns one page of tasks matching the query, reading only the months inside the date range.
+     * Cursors are opaque to callers and only valid for the same query.
+     * @param query Date range, optional user, cursor and page size
+     * @return Matching tasks in completion order and the cursor of the next page
+     * @throws IllegalArgumentException if the cursor is not valid
+     */
+    TaskPage findPage(TaskQuery query);
+
+    /**
+     * Creates a repository with the same settings that keeps the tasks of one tenant apart from all others,
+     * e.g. in its own subdirectory or database.
+     * @param tenant Tenant name, lower-case letters, digits, '-' and '_'
+     * @return Repository of the tenant, whose background hooks are run and which is closed by the caller
+     * @throws UnsupportedOperationException if the repository can't be split by tenant
+     */
+    default TaskRepository forTenant(String tenant) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support tenants");
+    }
+
+    /**
+     * Writes buffered changes to the backend. Like the other background hooks below, it is called periodically
+     * for repositories that are not managed by Spring, such as those created by {@link #forTenant(String)}.
+     * Spring-managed repositories schedule their background work themselves.
+     */
+    default void flush() {
+    }
+
+    /**
+     * Compacts write-ahead journals into the stored data, see {@link #flush()}.
+     */
+    default void compactJournals() {
+    }
+
+    /**
+     * Archives the data of closed months, see {@link #flush()}.
+     */
+    default void archiveClosedMonths() {
+    }
+
+    /**
+     * Releases the resources of the repository.
+     */
+    default void close() {
+    }
+}
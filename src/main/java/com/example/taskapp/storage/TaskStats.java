@@ -0,0 +1,160 @@
+package com.example.taskapp.storage;
+
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Incrementally maintained task counts per user and task for each day, week and month.
+ * The counters are built once from the previous and the current month at startup and then
+ * updated on every completion and undo, so reading the statistics costs O(users × tasks)
+ * instead of a scan over all records.
+ * Periods older than the first day of the previous month are dropped.
+ */
+@Component
+public class TaskStats implements TaskListener {
+
+    private final TaskRepository repository;
+
+    private final ConcurrentHashMap<LocalDate, Counts> days = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<LocalDate, Counts> weeks = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<YearMonth, Counts> months = new ConcurrentHashMap<>();
+
+    /**
+     * Counts of one period for one day, week or month.
+     * @param date Day the statistics were requested for
+     * @param day Counts of that day, user email to task to count
+     * @param week Counts of the week (Monday to Sunday) containing the day
+     * @param month Counts of the month containing the day
+     */
+    public record Snapshot(LocalDate date,
+                           Map<String, Map<String, Integer>> day,
+                           Map<String, Map<String, Integer>> week,
+                           Map<String, Map<String, Integer>> month) {
+    }
+
+    /**
+     * Counts of one period, user email to task to number of completions.
+     * Counts that drop to zero are removed.
+     */
+    private static final class Counts {
+
+        private final ConcurrentHashMap<String, ConcurrentHashMap<String, Integer>> byUser = new ConcurrentHashMap<>();
+
+        void add(String user, String task, int delta) {
+            byUser.computeIfAbsent(user, key -> new ConcurrentHashMap<>())
+                    .merge(task, delta, (current, change) -> current + change == 0 ? null : current + change);
+        }
+
+        Map<String, Map<String, Integer>> copy() {
+            Map<String, Map<String, Integer>> copy = new TreeMap<>();
+            byUser.forEach((user, tasks) -> {
+                if (!tasks.isEmpty()) {
+                    copy.put(user, new TreeMap<>(tasks));
+                }
+            });
+            return copy;
+        }
+    }
+
+    /**
+     * Constructor-based dependency injection of the task repository used for the initial load.
+     * @param repository Repository selected by taskapp.storage.backend
+     */
+    public TaskStats(TaskRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Builds the counters from the previous and the current month.
+     */
+    @PostConstruct
+    public void hydrate() {
+        YearMonth current = YearMonth.now();
+        for (YearMonth month : List.of(current.minusMonths(1), current)) {
+            for (List<Task> tasks : repository.findAllByUser(month).values()) {
+                for (Task task : tasks) {
+                    count(task, 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the previous and the current month of a repository from scratch, for a repository whose changes
+     * are not all reported to this node's listeners, such as the repository over all partitions of a cluster.
+     * @param repository Repository to read
+     * @param date Day of interest
+     * @return Counts of the day, week and month containing the date
+     */
+    public static Snapshot scan(TaskRepository repository, LocalDate date) {
+        TaskStats stats = new TaskStats(repository);
+        stats.hydrate();
+        return stats.snapshot(date);
+    }
+
+    @Override
+    public void taskAdded(Task task) {
+        count(task, 1);
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        count(task, -1);
+    }
+
+    /**
+     * Returns the counts of the day, week and month containing the given date.
+     * Periods that are no longer retained are returned empty.
+     * @param date Day of interest
+     * @return Copy of the counts, sorted by user and task
+     */
+    public Snapshot snapshot(LocalDate date) {
+        return new Snapshot(date,
+                copy(days.get(date)),
+                copy(weeks.get(weekStart(date))),
+                copy(months.get(YearMonth.from(date))));
+    }
+
+    private void count(Task task, int delta) {
+        LocalDate date = task.date();
+        if (date.isBefore(retainedFrom())) {
+            return;
+        }
+        if (!days.containsKey(date)) {
+            prune();
+        }
+        days.computeIfAbsent(date, key -> new Counts()).add(task.user(), task.task(), delta);
+        weeks.computeIfAbsent(weekStart(date), key -> new Counts()).add(task.user(), task.task(), delta);
+        months.computeIfAbsent(YearMonth.from(date), key -> new Counts()).add(task.user(), task.task(), delta);
+    }
+
+    /**
+     * Drops periods that started before the retained window, called whenever a new day appears.
+     */
+    private void prune() {
+        LocalDate from = retainedFrom();
+        days.keySet().removeIf(day -> day.isBefore(from));
+        weeks.keySet().removeIf(week -> week.plusDays(6).isBefore(from));
+        months.keySet().removeIf(month -> month.atEndOfMonth().isBefore(from));
+    }
+
+    private static LocalDate retainedFrom() {
+        return YearMonth.now().minusMonths(1).atDay(1);
+    }
+
+    private static LocalDate weekStart(LocalDate date) {
+        return date.with(DayOfWeek.MONDAY);
+    }
+
+    private static Map<String, Map<String, Integer>> copy(Counts counts) {
+        return counts != null ? counts.copy() : Map.of();
+    }
+}
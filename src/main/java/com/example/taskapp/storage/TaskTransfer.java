@@ -0,0 +1,297 @@
+package com.example.taskapp.storage;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Bulk export and import of task history as NDJSON (one JSON object per line, the journal format)
+ * or CSV (header user,date,task). Both directions stream: an export reads one month at a time,
+ * an import reads one line at a time and stores the records in batches of taskapp.transfer.batch-size
+ * with {@link UserTask#importTasks(List)}, so memory doesn't depend on the size of the history.
+ * An import skips records that are already stored: a record is imported only as often as it appears in the input
+ * beyond the number of equal records (same user, day and task) stored before the import,
+ * so importing the same file twice doesn't duplicate anything while repeated completions of a day are kept.
+ * The counts are kept for the last three months seen, input in month order (as exported) is deduplicated exactly.
+ */
+@Component
+public class TaskTransfer {
+
+    private static final int MAX_USER_LENGTH = 320;
+    private static final int MAX_TASK_LENGTH = 255;
+    private static final int MAX_ERRORS = 100;
+    private static final int CACHED_MONTHS = 3;
+    private static final String CSV_HEADER = "user,date,task";
+
+    /**
+     * Supported file formats.
+     */
+    public enum Format {
+        NDJSON, CSV;
+
+        /**
+         * @param name "ndjson" or "csv", case-insensitive
+         * @return The format
+         * @throws IllegalArgumentException for other names
+         */
+        public static Format of(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Outcome of an import.
+     * @param imported Number of stored records
+     * @param duplicates Number of records skipped because they were already stored
+     * @param rejected Number of invalid lines
+     * @param errors Line numbers and reasons of the first rejected lines
+     */
+    public record ImportResult(long imported, long duplicates, long rejected, List<String> errors) {
+    }
+
+    private final int batchSize;
+
+    /**
+     * @param batchSize Number of records stored with one write
+     */
+    public TaskTransfer(@Value("${taskapp.transfer.batch-size:5000}") int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Writes all tasks of a service in a date range.
+     * @param source Task service to export
+     * @param from First day, null for no lower bound
+     * @param to Last day, null for no upper bound
+     * @param format Output format
+     * @param out Output, flushed but not closed
+     * @return Number of exported records
+     */
+    public long export(UserTask source, LocalDate from, LocalDate to, Format format, OutputStream out) throws IOException {
+        long count = 0;
+        try (Stream<Task> tasks = source.streamAllTasks(from, to)) {
+            Iterator<Task> iterator = tasks.iterator();
+            if (format == Format.NDJSON) {
+                try (JsonGenerator json = TaskCodec.lineWriter(out)) {
+                    while (iterator.hasNext()) {
+                        TaskCodec.writeLine(json, iterator.next());
+                        count++;
+                    }
+                }
+            } else {
+                Writer csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                csv.write(CSV_HEADER);
+                csv.write('\n');
+                while (iterator.hasNext()) {
+                    Task task = iterator.next();
+                    csv.write(csvField(task.user()) + ',' + task.date() + ',' + csvField(task.task()));
+                    csv.write('\n');
+                    count++;
+                }
+                csv.flush();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads, validates, deduplicates and stores tasks.
+     * Lines are rejected for a malformed record, a user that isn't an email or isn't accepted,
+     * a day in the future or a task name that is empty or longer than 255 characters.
+     * @param target Task service to store the records in
+     * @param acceptUser Users the records may belong to, e.g. the users of one tenant
+     * @param format Input format
+     * @param in UTF-8 input, not closed
+     * @return Numbers of imported, duplicate and rejected records
+     */
+    public ImportResult importTasks(UserTask target, Predicate<String> acceptUser, Format format, InputStream in) throws IOException {
+        Importer importer = new Importer(target);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (format == Format.CSV && lineNumber == 1 && line.trim().equals(CSV_HEADER))) {
+                continue;
+            }
+            Task task;
+            try {
+                task = format == Format.NDJSON ? readNdjson(line) : readCsv(line);
+                validate(task, acceptUser);
+            } catch (IOException | RuntimeException e) {
+                importer.reject(lineNumber, e.getMessage());
+                continue;
+            }
+            importer.add(task);
+        }
+        importer.flush();
+        return importer.result();
+    }
+
+    private static Task readNdjson(String line) throws IOException {
+        TaskJournal.Entry entry = TaskCodec.readEntry(line);
+        if (entry.removal()) {
+            throw new IOException("Removal records can't be imported");
+        }
+        return entry.task();
+    }
+
+    private static Task readCsv(String line) throws IOException {
+        List<String> fields = parseCsvLine(line);
+        if (fields.size() != 3) {
+            throw new IOException("Expected 3 fields, found " + fields.size());
+        }
+        return new Task(fields.get(0).trim(), LocalDate.parse(fields.get(1).trim()), fields.get(2).trim());
+    }
+
+    private static void validate(Task task, Predicate<String> acceptUser) throws IOException {
+        String user = task.user();
+        if (user.isEmpty() || user.length() > MAX_USER_LENGTH || user.indexOf('@') < 1 || user.chars().anyMatch(Character::isWhitespace)) {
+            throw new IOException("Invalid user " + user);
+        }
+        if (!acceptUser.test(user)) {
+            throw new IOException("User " + user + " can't be imported here");
+        }
+        if (task.date().isAfter(LocalDate.now())) {
+            throw new IOException("Date " + task.date() + " is in the future");
+        }
+        if (task.task().isBlank() || task.task().length() > MAX_TASK_LENGTH) {
+            throw new IOException("Invalid task name");
+        }
+    }
+
+    /**
+     * Splits one CSV line into fields. Fields may be quoted with '"', a quote inside a quoted field is doubled.
+     * @param line Line without its line break
+     * @return Unquoted fields
+     * @throws IOException for an unterminated quoted field
+     */
+    static List<String> parseCsvLine(String line) throws IOException {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IOException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"").replace("\r", " ").replace("\n", " ") + '"';
+    }
+
+    /**
+     * State of one import: the pending batch, the counts of stored records of recent months and the totals.
+     */
+    private final class Importer {
+
+        private final UserTask target;
+        private final List<Task> batch = new ArrayList<>(batchSize);
+
+        /**
+         * Per month, how many more occurrences of each record are already stored and have to be skipped.
+         */
+        private final Map<YearMonth, Map<Task, Integer>> stored = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<YearMonth, Map<Task, Integer>> eldest) {
+                return size() > CACHED_MONTHS;
+            }
+        };
+
+        private long imported;
+        private long duplicates;
+        private long rejected;
+        private final List<String> errors = new ArrayList<>();
+
+        Importer(UserTask target) {
+            this.target = target;
+        }
+
+        void add(Task task) {
+            YearMonth month = YearMonth.from(task.date());
+            Map<Task, Integer> counts = stored.get(month);
+            if (counts == null) {
+                flush();
+                counts = countStored(month);
+                stored.put(month, counts);
+            }
+            Integer remaining = counts.get(task);
+            if (remaining != null) {
+                if (remaining == 1) {
+                    counts.remove(task);
+                } else {
+                    counts.put(task, remaining - 1);
+                }
+                duplicates++;
+                return;
+            }
+            batch.add(task);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        /**
+         * Counts the records of a month stored so far, after the pending batch has been flushed.
+         */
+        private Map<Task, Integer> countStored(YearMonth month) {
+            Map<Task, Integer> counts = new HashMap<>();
+            try (Stream<Task> tasks = target.streamAllTasks(month.atDay(1), month.atEndOfMonth())) {
+                tasks.forEach(task -> counts.merge(task, 1, Integer::sum));
+            }
+            return counts;
+        }
+
+        void reject(long lineNumber, String reason) {
+            rejected++;
+            if (errors.size() < MAX_ERRORS) {
+                errors.add("line " + lineNumber + ": " + reason);
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            target.importTasks(List.copyOf(batch));
+            imported += batch.size();
+            batch.clear();
+        }
+
+        ImportResult result() {
+            return new ImportResult(imported, duplicates, rejected, List.copyOf(errors));
+        }
+    }
+}
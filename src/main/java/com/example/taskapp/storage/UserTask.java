@@ -1,131 +1,182 @@
 package com.example.taskapp.storage;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.LocalDate;
-import org.json.JSONArray;
-import org.json.JSONObject;
-
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service component responsible for managing user task storage and retrieval.
- * Handles persistent storage of completed tasks in JSON format, organized by month.
+ * Records completed tasks with the current date and formats them for the controllers.
  * Each task record includes user email, completion date, and task description.
+ * Persistence is delegated to the configured {@link TaskRepository},
+ * every stored change is then reported to the registered {@link TaskListener}s.
+ * Every change also advances a global and a per-user version, which the controllers use as ETags.
+ * Undo works on several levels: each undo removes the user's newest completion of the day and keeps it
+ * on the user's redo stack, from which redo stores it again, until the user completes another task.
  */
 @Component
 public class UserTask {
 
-    private static final String USER_TASKS_DIRECTORY = "tasks";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-    private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final int REDO_DEPTH = 50;
+
+    private final TaskRepository repository;
+    private final List<TaskListener> listeners;
+    private final MonthPartitions partitions;
 
     /**
-     * Constructor that ensures the tasks directory exists.
-     * Creates the directory if it doesn't exist during application startup.
+     * Version of the whole dataset and of each user's data. Versions start at the startup time in microseconds,
+     * so they keep growing across restarts, and a user's version is the global version of the user's last change.
+     * Changes made to the storage outside of this service are not counted, so in a partitioned deployment
+     * the versions only cover the changes made through this node.
      */
-    public UserTask() {
-        Path directoryPath = Paths.get(USER_TASKS_DIRECTORY);
-        if (!Files.exists(directoryPath)) {
-            try {
-                Files.createDirectories(directoryPath);
-                System.out.println("Directory " + USER_TASKS_DIRECTORY + " was created successfully.");
-            } catch (IOException e) {
-                System.err.println("Failed to create directory " + e.getMessage());
-            }
-        }
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final long initialVersion = version.get();
+    private final Map<String, Long> userVersions = new ConcurrentHashMap<>();
+
+    /**
+     * Completions undone by each user, newest first, at most REDO_DEPTH per user.
+     * The stored records themselves are kept, so redo puts back exactly the record that was undone.
+     * Only today's completions can be undone, so all stacks are dropped on the first undo or redo of a new day.
+     */
+    private final Map<String, Deque<Task>> undone = new ConcurrentHashMap<>();
+    private volatile LocalDate undoneDay = LocalDate.now();
+
+    /**
+     * Creates the service without listeners.
+     * @param repository Repository selected by taskapp.storage.backend
+     */
+    public UserTask(TaskRepository repository) {
+        this(repository, List.of());
+    }
+
+    /**
+     * Creates the service on a single node.
+     * @param repository Repository selected by taskapp.storage.backend
+     * @param listeners Listeners notified after every stored change
+     */
+    public UserTask(TaskRepository repository, List<TaskListener> listeners) {
+        this(repository, listeners, Optional.empty());
     }
 
     /**
-     * Generates the filename for the current month's task file.
-     * Files are named in format: tasks_YYYY_MM.json
-     * @return Complete file path for the current month's task file
+     * Constructor-based dependency injection of the task repository, the listeners and the partitioning.
+     * In a partitioned deployment the repository is this node's partition and the service works on all partitions.
+     * @param repository Repository selected by taskapp.storage.backend
+     * @param listeners Listeners notified after every stored change
+     * @param partitioning Partitioning of a multi-node deployment, present if taskapp.cluster.enabled=true
      */
-    private String getFileName() {
-        LocalDate now = LocalDate.now();
-        return USER_TASKS_DIRECTORY + File.separator + "tasks_" + MONTH_FORMATTER.format(now) + ".json";
+    @Autowired
+    public UserTask(TaskRepository repository, List<TaskListener> listeners, Optional<Partitioning> partitioning) {
+        this.repository = partitioning.map(cluster -> cluster.partitioned(repository)).orElse(repository);
+        this.listeners = List.copyOf(listeners);
+        this.partitions = new MonthPartitions(this.repository);
     }
 
     /**
      * Adds a completed task for a specific user with the current date.
-     * Creates a JSON object containing user email, current date, and task description,
-     * then appends it to the current month's task file.
      * @param user Email address of the user who completed the task
      * @param task Description of the completed task
      */
     public void addTask(String user, String task) {
-        LocalDate now = LocalDate.now();
-        String date = DATE_FORMATTER.format(now);
-        JSONObject taskJson = new JSONObject();
-        taskJson.put("user", user);
-        taskJson.put("date", date);
-        taskJson.put("task", task);
+        undone.remove(user);
+        store(new Task(user, LocalDate.now(), task));
+    }
 
-        JSONArray tasks = loadTasks();
-        tasks.put(taskJson);
-        saveTasks(tasks);
+    /**
+     * Stores a completed task and notifies the listeners.
+     * @param completed Completed task
+     */
+    private void store(Task completed) {
+        repository.save(completed);
+        changed(completed.user());
+        for (TaskListener listener : listeners) {
+            listener.taskAdded(completed);
+        }
     }
 
     /**
-     * Saves the tasks array to the current month's JSON file.
-     * Writes the JSON with proper formatting (indentation of 2 spaces).
-     * @param tasks JSONArray containing all tasks to be saved
+     * Adds several completed tasks at once, persisted together by the repository.
+     * @param tasks Completed tasks with their users and completion dates
      */
-    private void saveTasks(JSONArray tasks) {
-        String fileName = getFileName();
-        try (FileWriter fileWriter = new FileWriter(fileName)) {
-            fileWriter.write(tasks.toString(2));
-        } catch (IOException e) {
-            e.printStackTrace();
+    public void addTasks(List<Task> tasks) {
+        repository.saveAll(tasks);
+        for (Task completed : tasks) {
+            undone.remove(completed.user());
+            changed(completed.user());
+            for (TaskListener listener : listeners) {
+                listener.taskAdded(completed);
+            }
         }
     }
 
     /**
-     * Loads all tasks from the current month's JSON file.
-     * Creates an empty JSONArray if the file doesn't exist or is empty.
-     * @return JSONArray containing all tasks from the current month's file
+     * Stores a batch of imported tasks with one {@link TaskRepository#saveAll(List)} call.
+     * Listeners are notified once for the whole batch, and the users' redo stacks are kept.
+     * @param tasks Validated tasks with their users and completion dates
      */
-    private JSONArray loadTasks() {
-        String fileName = getFileName();
-        File file = new File(fileName);
-        if (!file.exists()) {
-            return new JSONArray();
+    public void importTasks(List<Task> tasks) {
+        repository.saveAll(tasks);
+        for (Task imported : tasks) {
+            changed(imported.user());
         }
-        try {
-            String content = new String(Files.readAllBytes(Paths.get(fileName)));
-            if (content.isEmpty()) {
-                return new JSONArray();
-            }
-            return new JSONArray(content);
-        } catch (IOException e) {
-            e.printStackTrace();
-            return new JSONArray();
+        for (TaskListener listener : listeners) {
+            listener.tasksImported(tasks);
         }
     }
 
+    /**
+     * Counts the completions of the previous and the current month on all partitions, see {@link TaskStats#scan}.
+     * @param date Day of interest
+     * @return Counts of the day, week and month containing the date
+     */
+    public TaskStats.Snapshot countTasks(LocalDate date) {
+        return TaskStats.scan(repository, date);
+    }
+
+    /**
+     * Advances the global version and the version of the user, after the change has been stored.
+     * @param user Email address of the user whose data changed
+     */
+    private void changed(String user) {
+        long changed = version.incrementAndGet();
+        userVersions.merge(user, changed, Math::max);
+    }
+
+    /**
+     * @return Version of all stored tasks, increased by every change made through this service
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * @param user Email address of the user
+     * @return Version of the user's tasks, increased by every change of the user's tasks
+     */
+    public long getVersion(String user) {
+        return userVersions.getOrDefault(user, initialVersion);
+    }
+
     /**
      * Retrieves all tasks completed by a specific user today.
-     * Filters tasks by user email and current date.
      * @param user Email address of the user
      * @return List of task descriptions completed by the user today
      */
     public List<String> getTasksForToday(String user) {
-        LocalDate today = LocalDate.now();
-        String todayString = DATE_FORMATTER.format(today);
-        JSONArray tasks = loadTasks();
         List<String> userTasks = new ArrayList<>();
-        for (int i = 0; i < tasks.length(); i++) {
-            JSONObject taskJson = tasks.getJSONObject(i);
-            if (taskJson.getString("user").equals(user) && taskJson.getString("date").equals(todayString)) {
-                userTasks.add(taskJson.getString("task"));
-            }
+        for (Task task : repository.findByUserAndDate(user, LocalDate.now())) {
+            userTasks.add(task.task());
         }
         return userTasks;
     }
@@ -137,62 +188,199 @@ public class UserTask {
      * @return Map where keys are user emails and values are lists of tasks with completion dates
      */
     public Map<String, List<String>> getAllUserTasks() {
-        JSONArray tasks = loadTasks();
         Map<String, List<String>> allUserTasks = new HashMap<>();
-        for (int i = 0; i < tasks.length(); i++) {
-            JSONObject taskJson = tasks.getJSONObject(i);
-            String user = taskJson.getString("user");
-            String task = taskJson.getString("task");
-            String date = taskJson.getString("date");
-            String taskWithDate = task + " (" + date + ")";
-            if (!allUserTasks.containsKey(user)) {
-                allUserTasks.put(user, new ArrayList<>());
+        for (Map.Entry<String, List<Task>> entry : repository.findAllByUser(YearMonth.now()).entrySet()) {
+            List<String> userTasks = new ArrayList<>(entry.getValue().size());
+            for (Task task : entry.getValue()) {
+                userTasks.add(formatWithDate(task));
             }
-            allUserTasks.get(user).add(taskWithDate);
+            allUserTasks.put(entry.getKey(), userTasks);
         }
         return allUserTasks;
     }
 
     /**
-     * Retrieves all tasks ever completed by a specific user from the current month.
+     * Retrieves the tasks of all users completed in a date range, possibly spanning many months.
+     * The months are loaded in parallel and the records in the range are grouped by user on all cores in a single pass,
+     * see {@link #groupByUser(List, Predicate)}. The whole result is built in memory, so callers limit the range.
+     * @param from First day of the range
+     * @param to Last day of the range
+     * @return Map where keys are user emails and values are lists of tasks with completion dates, in completion order
+     */
+    public Map<String, List<String>> getAllUserTasks(LocalDate from, LocalDate to) {
+        List<Task> tasks = partitions.scan(partitions.prune(from, to), repository::findAll);
+        return groupByUser(tasks, task -> !task.date().isBefore(from) && !task.date().isAfter(to));
+    }
+
+    /**
+     * Groups tasks by user in parallel. The list is split across the cores of the common fork-join pool
+     * (or of the pool the caller runs in), every split is grouped separately and the partial maps are merged.
+     * The merge keeps the encounter order, so each user's tasks stay in completion order,
+     * which a concurrent grouping into one shared map would not guarantee.
+     * @param tasks Tasks in completion order
+     * @return Map where keys are user emails and values are lists of tasks with completion dates
+     */
+    public static Map<String, List<String>> groupByUser(List<Task> tasks) {
+        return groupByUser(tasks, task -> true);
+    }
+
+    /**
+     * Groups the tasks meeting a condition by user in parallel, filtering and grouping in the same pass,
+     * see {@link #groupByUser(List)}.
+     * @param tasks Tasks in completion order
+     * @param filter Condition on the tasks to group
+     * @return Map where keys are user emails and values are lists of tasks with completion dates
+     */
+    public static Map<String, List<String>> groupByUser(List<Task> tasks, Predicate<Task> filter) {
+        return tasks.parallelStream()
+                .filter(filter)
+                .collect(Collectors.groupingBy(Task::user, HashMap::new,
+                        Collectors.mapping(UserTask::formatWithDate, Collectors.toList())));
+    }
+
+    /**
+     * Retrieves all tasks ever completed by a specific user, across all stored months.
+     * The months are scanned in parallel and returned oldest first.
      * Used in user profile to show complete task history.
      * @param user Email address of the user
      * @return List of all tasks completed by the user with completion dates
      */
     public List<String> getAllTasksForUser(String user) {
-        JSONArray tasks = loadTasks();
         List<String> userAllTasks = new ArrayList<>();
-        for (int i = 0; i < tasks.length(); i++) {
-            JSONObject taskJson = tasks.getJSONObject(i);
-            if (taskJson.getString("user").equals(user)) {
-                String task = taskJson.getString("task");
-                String date = taskJson.getString("date");
-                userAllTasks.add(task + " (splněno: " + date + ")");
-            }
+        for (Task task : partitions.scan(partitions.prune(null, null), month -> repository.findByUser(user, month))) {
+            userAllTasks.add(formatCompleted(task));
         }
         return userAllTasks;
     }
 
+    /**
+     * Streams the tasks of all users from the current month without building the whole result in memory.
+     * The stream must be closed after use.
+     * @return Tasks of the current month, all tasks of one user next to each other
+     */
+    public Stream<Task> streamAllUserTasks() {
+        return repository.streamGroupedByUser(YearMonth.now());
+    }
+
+    /**
+     * Streams all tasks ever completed by one user, month by month. The stream must be closed after use.
+     * @param user Email address of the user
+     * @return Tasks of the user in completion order, oldest month first
+     */
+    public Stream<Task> streamAllTasksForUser(String user) {
+        return partitions.stream(partitions.prune(null, null), month -> repository.streamByUser(user, month));
+    }
+
+    /**
+     * Streams the tasks of all users in a date range month by month, only one month is read at a time.
+     * Within a month all tasks of one user are next to each other. The stream must be closed after use.
+     * @param from First day of the range, null for no lower bound
+     * @param to Last day of the range, null for no upper bound
+     * @return Tasks in the range, oldest month first
+     */
+    public Stream<Task> streamAllTasks(LocalDate from, LocalDate to) {
+        return partitions.stream(partitions.prune(from, to), repository::streamGroupedByUser)
+                .filter(task -> (from == null || !task.date().isBefore(from)) && (to == null || !task.date().isAfter(to)));
+    }
+
+    /**
+     * Retrieves one page of completed tasks in a date range, possibly spanning several months.
+     * @param query Date range, optional user filter, cursor and page size
+     * @return Tasks on the page and the cursor of the next page
+     * @throws IllegalArgumentException if the cursor is not valid for the query
+     */
+    public TaskPage findTasks(TaskQuery query) {
+        return repository.findPage(query);
+    }
+
+    /**
+     * Formats a task with its completion date, as shown on the all-profiles page.
+     * @param task Completed task
+     * @return Text in the format "task (yyyy-MM-dd)"
+     */
+    public static String formatWithDate(Task task) {
+        return task.task() + " (" + DATE_FORMATTER.format(task.date()) + ")";
+    }
+
+    /**
+     * Formats a task with its completion date, as shown in the user's history.
+     * @param task Completed task
+     * @return Text in the format "task (splněno: yyyy-MM-dd)"
+     */
+    public static String formatCompleted(Task task) {
+        return task.task() + " (splněno: " + DATE_FORMATTER.format(task.date()) + ")";
+    }
+
     /**
      * Removes the most recently completed task for the given user from today.
+     * The day is resolved to its own month's partition, so undo works on the first day of a month as well.
+     * Repeated calls undo further completions of the day, each one can be restored by {@link #redoLastTask(String)}.
      * @param user Email address of the user
      * @return true if a task was removed, false otherwise
      */
     public boolean removeLastTask(String user) {
-        LocalDate today = LocalDate.now();
-        String todayString = DATE_FORMATTER.format(today);
-        JSONArray tasks = loadTasks();
-        for (int i = tasks.length() - 1; i >= 0; i--) {
-            JSONObject taskJson = tasks.getJSONObject(i);
-            if (taskJson.getString("user").equals(user) && taskJson.getString("date").equals(todayString)) {
-                tasks.remove(i);
-                saveTasks(tasks);
-                return true;
-            }
+        Task removed = repository.removeLast(user, LocalDate.now());
+        if (removed == null) {
+            return false;
         }
-        return false;
+        pruneUndone();
+        Deque<Task> redo = undone.computeIfAbsent(user, key -> new ConcurrentLinkedDeque<>());
+        redo.push(removed);
+        if (redo.size() > REDO_DEPTH) {
+            redo.pollLast();
+        }
+        changed(user);
+        for (TaskListener listener : listeners) {
+            listener.taskRemoved(removed);
+        }
+        return true;
     }
 
-}
+    /**
+     * Stores the most recently undone task of the user again.
+     * Only tasks undone today can be redone, the stack is dropped once the day is over
+     * and whenever the user completes another task.
+     * @param user Email address of the user
+     * @return true if a task was restored, false if there is nothing to redo
+     */
+    public boolean redoLastTask(String user) {
+        return redoLastTask(user, task -> true);
+    }
 
+    /**
+     * Stores the most recently undone task of the user again, if it may still be completed.
+     * A task that may not, e.g. because it was retired from the catalog in the meantime, is dropped from the stack.
+     * @param user Email address of the user
+     * @param allowed Condition the undone task must still meet
+     * @return true if a task was restored, false if there is nothing to redo or the task is not allowed
+     */
+    public boolean redoLastTask(String user, Predicate<Task> allowed) {
+        pruneUndone();
+        Deque<Task> redo = undone.get(user);
+        Task task = redo != null ? redo.pollFirst() : null;
+        if (task == null) {
+            return false;
+        }
+        if (!task.date().equals(LocalDate.now())) {
+            undone.remove(user, redo);
+            return false;
+        }
+        if (!allowed.test(task)) {
+            return false;
+        }
+        store(task);
+        return true;
+    }
+
+    /**
+     * Drops the redo stacks of previous days, including those of users who never came back to redo.
+     */
+    private void pruneUndone() {
+        LocalDate today = LocalDate.now();
+        if (!today.equals(undoneDay)) {
+            undoneDay = today;
+            undone.clear();
+        }
+    }
 
+}
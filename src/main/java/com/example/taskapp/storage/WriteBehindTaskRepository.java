@@ -0,0 +1,389 @@
+package com.example.taskapp.storage;
+
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Write-behind cache in front of the configured backend, enabled by taskapp.storage.write-behind.enabled=true.
+ * Completions are collected in an in-memory buffer and written to the backend in batches with
+ * {@link TaskRepository#saveAll(List)}, every flush-interval-ms, as soon as max-pending completions are waiting
+ * and on shutdown. Reads merge the buffer into the backend's results, so buffered completions are visible at once.
+ * The durability level (taskapp.storage.write-behind.durability) decides when a completion is acknowledged:
+ * "buffered" returns as soon as the completion is in memory, so a crash loses up to one flush interval of completions,
+ * "flushed" waits until the batch containing the completion has been written, so nothing acknowledged is lost
+ * and concurrent completions still share one write.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = "taskapp.storage.write-behind.enabled", havingValue = "true")
+public class WriteBehindTaskRepository implements TaskRepository {
+
+    static final String DURABILITY_BUFFERED = "buffered";
+    static final String DURABILITY_FLUSHED = "flushed";
+
+    private final TaskRepository delegate;
+    private final String durability;
+    private final boolean waitForFlush;
+    private final long flushIntervalMs;
+    private final int maxPending;
+    private boolean ownsDelegate;
+
+    /**
+     * Buffered completions in completion order and the sequence numbers of the last buffered
+     * and the last persisted completion. A lock rather than a monitor, see {@link TaskJournal}.
+     * The lock is only held to change or copy the buffer, never while the backend is called.
+     */
+    private final ReentrantLock bufferLock = new ReentrantLock();
+    private final Condition persistedChanged = bufferLock.newCondition();
+    private List<Task> pending = new ArrayList<>();
+    private long buffered;
+    private long persisted;
+
+    /**
+     * Whether a batch is being written to the backend, the batch itself and the number of batch writes started so far.
+     * A batch being written may or may not be visible in the backend yet, so only reads of tasks in that batch
+     * wait for the write, see {@link #read(Predicate, Function)}.
+     */
+    private boolean writing;
+    private List<Task> inFlight = List.of();
+    private long writes;
+
+    /**
+     * @param delegate Repository selected by taskapp.storage.backend
+     * @param durability "buffered" (default) or "flushed"
+     * @param flushIntervalMs Longest time a completion waits in the buffer
+     * @param maxPending Number of buffered completions that triggers a flush right away
+     */
+    @Autowired
+    public WriteBehindTaskRepository(TaskRepository delegate,
+                                     @Value("${taskapp.storage.write-behind.durability:buffered}") String durability,
+                                     @Value("${taskapp.storage.write-behind.flush-interval-ms:200}") long flushIntervalMs,
+                                     @Value("${taskapp.storage.write-behind.max-pending:1000}") int maxPending) {
+        this.delegate = delegate;
+        this.durability = durability;
+        this.waitForFlush = DURABILITY_FLUSHED.equalsIgnoreCase(durability);
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxPending = maxPending;
+    }
+
+    @Override
+    public void save(Task task) {
+        saveAll(List.of(task));
+    }
+
+    /**
+     * Buffers the tasks. The caller that fills the buffer flushes it,
+     * which keeps the buffer bounded when completions come in faster than the flush interval.
+     * With durability "flushed" the call returns once the tasks are written.
+     * @param tasks Completed tasks, possibly of different users and months
+     */
+    @Override
+    public void saveAll(List<Task> tasks) {
+        long ticket;
+        boolean full;
+        bufferLock.lock();
+        try {
+            pending.addAll(tasks);
+            buffered += tasks.size();
+            ticket = buffered;
+            full = pending.size() >= maxPending;
+        } finally {
+            bufferLock.unlock();
+        }
+        if (full) {
+            flush();
+        }
+        if (waitForFlush) {
+            awaitPersisted(ticket);
+        }
+    }
+
+    /**
+     * Waits for the flush that writes the completion with the given sequence number.
+     * If no flush happens within one interval (e.g. without a scheduler), the caller flushes itself.
+     * @param ticket Sequence number of the caller's last completion
+     */
+    private void awaitPersisted(long ticket) {
+        bufferLock.lock();
+        try {
+            long nanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+            while (persisted < ticket && nanos > 0) {
+                nanos = persistedChanged.awaitNanos(nanos);
+            }
+            if (persisted >= ticket) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } finally {
+            bufferLock.unlock();
+        }
+        flush();
+    }
+
+    /**
+     * Writes all buffered completions to the backend with one {@link TaskRepository#saveAll(List)} call.
+     * Runs every flush-interval-ms. An empty buffer is left alone, otherwise only taking the batch out
+     * of the buffer is exclusive, the batch is written while completions keep being buffered.
+     * Batches are written one at a time. If the backend fails, the batch is put back into the buffer
+     * and written with the next flush.
+     */
+    @Scheduled(fixedDelayString = "${taskapp.storage.write-behind.flush-interval-ms:200}")
+    @Override
+    public void flush() {
+        List<Task> batch;
+        long ticket;
+        bufferLock.lock();
+        try {
+            while (writing) {
+                persistedChanged.awaitUninterruptibly();
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            ticket = buffered;
+            pending = new ArrayList<>();
+            inFlight = batch;
+            writing = true;
+            writes++;
+        } finally {
+            bufferLock.unlock();
+        }
+        Timer.Sample sample = Timer.start();
+        boolean written = false;
+        try {
+            delegate.saveAll(batch);
+            written = true;
+            sample.stop(StorageMetrics.flush());
+        } finally {
+            bufferLock.lock();
+            try {
+                if (written) {
+                    persisted = ticket;
+                } else {
+                    pending.addAll(0, batch);
+                }
+                inFlight = List.of();
+                writing = false;
+                persistedChanged.signalAll();
+            } finally {
+                bufferLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Flushes the buffer when the application shuts down, before the backend is closed.
+     * A repository created by {@link #forTenant(String)} closes its own backend as well.
+     */
+    @PreDestroy
+    @Override
+    public void close() {
+        flush();
+        if (ownsDelegate) {
+            delegate.close();
+        }
+    }
+
+    /**
+     * Puts a buffer with the same settings in front of the tenant's repository of the backend.
+     */
+    @Override
+    public TaskRepository forTenant(String tenant) {
+        WriteBehindTaskRepository tenantRepository =
+                new WriteBehindTaskRepository(delegate.forTenant(tenant), durability, flushIntervalMs, maxPending);
+        tenantRepository.ownsDelegate = true;
+        return tenantRepository;
+    }
+
+    @Override
+    public void compactJournals() {
+        delegate.compactJournals();
+    }
+
+    @Override
+    public void archiveClosedMonths() {
+        delegate.archiveClosedMonths();
+    }
+
+    /**
+     * Removes the most recently completed task of the user on that day.
+     * A task still in the buffer is dropped from it without touching the backend.
+     */
+    @Override
+    public Task removeLast(String user, LocalDate date) {
+        bufferLock.lock();
+        try {
+            while (writing) {
+                persistedChanged.awaitUninterruptibly();
+            }
+            for (int i = pending.size() - 1; i >= 0; i--) {
+                Task task = pending.get(i);
+                if (task.user().equals(user) && task.date().equals(date)) {
+                    return pending.remove(i);
+                }
+            }
+        } finally {
+            bufferLock.unlock();
+        }
+        return delegate.removeLast(user, date);
+    }
+
+    @Override
+    public List<Task> findByUserAndDate(String user, LocalDate date) {
+        return read(task -> task.user().equals(user) && task.date().equals(date),
+                inBuffer -> merge(delegate.findByUserAndDate(user, date), inBuffer));
+    }
+
+    @Override
+    public List<Task> findByUser(String user, YearMonth month) {
+        return read(task -> task.user().equals(user) && YearMonth.from(task.date()).equals(month),
+                inBuffer -> merge(delegate.findByUser(user, month), inBuffer));
+    }
+
+    @Override
+    public Map<String, List<Task>> findAllByUser(YearMonth month) {
+        return read(task -> YearMonth.from(task.date()).equals(month), inBuffer -> {
+            Map<String, List<Task>> stored = delegate.findAllByUser(month);
+            if (inBuffer.isEmpty()) {
+                return stored;
+            }
+            Map<String, List<Task>> merged = new HashMap<>(stored);
+            Map<String, List<Task>> bufferedByUser = new HashMap<>();
+            for (Task task : inBuffer) {
+                bufferedByUser.computeIfAbsent(task.user(), user -> new ArrayList<>()).add(task);
+            }
+            for (Map.Entry<String, List<Task>> entry : bufferedByUser.entrySet()) {
+                merged.put(entry.getKey(), merge(stored.getOrDefault(entry.getKey(), List.of()), entry.getValue()));
+            }
+            return merged;
+        });
+    }
+
+    @Override
+    public List<Task> findAll(YearMonth month) {
+        return read(task -> YearMonth.from(task.date()).equals(month),
+                inBuffer -> merge(delegate.findAll(month), inBuffer));
+    }
+
+    @Override
+    public List<YearMonth> months() {
+        return read(task -> true, inBuffer -> {
+            Set<YearMonth> months = new TreeSet<>(delegate.months());
+            for (Task task : inBuffer) {
+                months.add(YearMonth.from(task.date()));
+            }
+            return new ArrayList<>(months);
+        });
+    }
+
+    /**
+     * Flushes the buffer first, buffered tasks can't be merged into the backend's grouping.
+     */
+    @Override
+    public Stream<Task> streamGroupedByUser(YearMonth month) {
+        flush();
+        return delegate.streamGroupedByUser(month);
+    }
+
+    /**
+     * Streams the user's stored tasks followed by the buffered ones.
+     */
+    @Override
+    public Stream<Task> streamByUser(String user, YearMonth month) {
+        return read(task -> task.user().equals(user) && YearMonth.from(task.date()).equals(month),
+                inBuffer -> Stream.concat(delegate.streamByUser(user, month), inBuffer.stream()));
+    }
+
+    /**
+     * Flushes the buffer first, cursors are positions in the backend's storage.
+     */
+    @Override
+    public TaskPage findPage(TaskQuery query) {
+        flush();
+        return delegate.findPage(query);
+    }
+
+    /**
+     * Reads the backend and merges the buffer as of the same moment, so that no read sees a task in the buffer
+     * and in the backend at the same time, or in neither of them. The matching buffered tasks are copied first
+     * and the backend is read without waiting for a batch write, unless the batch being written contains tasks
+     * the read is looking for. If a batch write started before the backend read was done and some of the copied
+     * tasks may have been in it, the read is repeated; a result closing resources, such as a stream, is closed.
+     * @param filter Condition on the buffered tasks
+     * @param query Reads the backend and merges the given buffered tasks, called without any lock held
+     * @return Result of the query
+     */
+    private <T> T read(Predicate<Task> filter, Function<List<Task>, T> query) {
+        while (true) {
+            List<Task> matching = new ArrayList<>();
+            long stamp;
+            bufferLock.lock();
+            try {
+                while (writing && inFlight.stream().anyMatch(filter)) {
+                    persistedChanged.awaitUninterruptibly();
+                }
+                stamp = writes;
+                for (Task task : pending) {
+                    if (filter.test(task)) {
+                        matching.add(task);
+                    }
+                }
+            } finally {
+                bufferLock.unlock();
+            }
+            T result = query.apply(matching);
+            bufferLock.lock();
+            try {
+                if (writes == stamp || matching.isEmpty()) {
+                    return result;
+                }
+            } finally {
+                bufferLock.unlock();
+            }
+            discard(result);
+        }
+    }
+
+    /**
+     * Releases a result that is read again, e.g. a stream holding a database cursor.
+     * @param result Result of a read that overlapped a batch write
+     */
+    private static void discard(Object result) {
+        if (result instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static List<Task> merge(List<Task> stored, List<Task> inBuffer) {
+        if (inBuffer.isEmpty()) {
+            return stored;
+        }
+        List<Task> merged = new ArrayList<>(stored.size() + inBuffer.size());
+        merged.addAll(stored);
+        merged.addAll(inBuffer);
+        return merged;
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.taskapp.tenant;
+
+import com.example.taskapp.auth.CredentialStore;
+import com.example.taskapp.events.TaskEventHub;
+import com.example.taskapp.storage.Partitioning;
+import com.example.taskapp.storage.TaskRepository;
+import com.example.taskapp.storage.TaskStats;
+import com.example.taskapp.storage.UserTask;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Storage of each tenant (household) listed in the users file.
+ * Every tenant gets its own repository created by {@link TaskRepository#forTenant(String)}
+ * (monthly files in tasks/&lt;tenant&gt;/ for the JSON backend), its own {@link UserTask} service and {@link TaskStats},
+ * so a request only reads and writes the records of the caller's household and never sees other households.
+ * The default tenant, users without a tenant column, uses the application's repository, service and statistics.
+ * Tenants are opened on first use and kept open until shutdown.
+ * In a partitioned deployment every tenant is partitioned like the default one: each node keeps its users'
+ * records in its own partition of the tenant's storage, and the tenant's service works on all partitions.
+ */
+@Component
+public class Tenants {
+
+    /**
+     * Services of one tenant.
+     * @param name Tenant name, {@link CredentialStore#DEFAULT_TENANT} for the default tenant
+     * @param tasks Task service working on the tenant's storage only
+     * @param stats Task counts of the tenant's users
+     */
+    public record Tenant(String name, UserTask tasks, TaskStats stats) {
+    }
+
+    private final TaskRepository repository;
+    private final TaskEventHub events;
+    private final CredentialStore credentials;
+    private final Optional<Partitioning> partitioning;
+    private final Tenant defaultTenant;
+    private final Map<String, Tenant> tenants = new ConcurrentHashMap<>();
+    private final Map<String, TaskRepository> repositories = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the tenants of a single node.
+     * @param repository Repository selected by taskapp.storage.backend, the tenants' repositories are created from it
+     * @param userTask Task service of the default tenant
+     * @param taskStats Task counts of the default tenant
+     * @param events Hub distributing task changes to the tenants' event streams
+     * @param credentials Users and their tenants
+     */
+    public Tenants(TaskRepository repository, UserTask userTask, TaskStats taskStats,
+                   TaskEventHub events, CredentialStore credentials) {
+        this(repository, userTask, taskStats, events, credentials, Optional.empty());
+    }
+
+    /**
+     * Constructor-based dependency injection of the default tenant's services and the partitioning.
+     * @param repository Repository selected by taskapp.storage.backend, the tenants' repositories are created from it
+     * @param userTask Task service of the default tenant
+     * @param taskStats Task counts of the default tenant
+     * @param events Hub distributing task changes to the tenants' event streams
+     * @param credentials Users and their tenants
+     * @param partitioning Partitioning of a multi-node deployment, present if taskapp.cluster.enabled=true
+     */
+    @Autowired
+    public Tenants(TaskRepository repository, UserTask userTask, TaskStats taskStats,
+                   TaskEventHub events, CredentialStore credentials, Optional<Partitioning> partitioning) {
+        this.repository = repository;
+        this.events = events;
+        this.credentials = credentials;
+        this.partitioning = partitioning;
+        this.defaultTenant = new Tenant(CredentialStore.DEFAULT_TENANT, userTask, taskStats);
+    }
+
+    /**
+     * @param user Email of the user
+     * @return Name of the user's tenant
+     */
+    public String tenantOf(String user) {
+        return credentials.tenantOf(user);
+    }
+
+    /**
+     * @param user Email of the user
+     * @param name Tenant name
+     * @return true if the user is listed in the users file as a member of the tenant
+     */
+    public boolean isMember(String user, String name) {
+        return credentials.exists(user) && tenantOf(user).equals(name);
+    }
+
+    /**
+     * Returns the services of the user's tenant, opening its storage on first use.
+     * @param user Email of the user
+     * @return Tenant of the user, the default tenant for users without a tenant
+     * @throws IllegalArgumentException if the user is not listed in the users file
+     */
+    public Tenant forUser(String user) {
+        if (!credentials.exists(user)) {
+            throw new IllegalArgumentException("Unknown user " + user);
+        }
+        return forTenant(tenantOf(user));
+    }
+
+    /**
+     * Returns the services of a tenant, opening its storage on first use.
+     * @param name Tenant name
+     * @return Tenant with that name
+     * @throws IllegalArgumentException if the name is not a valid tenant name
+     */
+    public Tenant forTenant(String name) {
+        if (CredentialStore.DEFAULT_TENANT.equals(name)) {
+            return defaultTenant;
+        }
+        if (!CredentialStore.isValidTenant(name)) {
+            throw new IllegalArgumentException("Invalid tenant name " + name);
+        }
+        return tenants.computeIfAbsent(name, this::open);
+    }
+
+    /**
+     * Creates the repository, statistics and task service of a tenant.
+     * @param name Tenant name
+     * @return Services of the tenant
+     */
+    private Tenant open(String name) {
+        TaskRepository local = partition(name);
+        TaskStats stats = new TaskStats(local);
+        stats.hydrate();
+        TaskRepository tenantRepository = partitioning.map(cluster -> cluster.partitioned(local, name)).orElse(local);
+        UserTask tasks = new UserTask(tenantRepository, List.of(stats, events.listenerFor(name)));
+        return new Tenant(name, tasks, stats);
+    }
+
+    /**
+     * Returns this node's repository of a tenant, creating it on first use. In a partitioned deployment
+     * it holds the records of the tenant's users owned by this node and serves the other nodes' requests.
+     * Opening it never calls other nodes, so two nodes opening the same tenant can't wait for each other.
+     * @param name Valid name of a tenant other than the default one
+     * @return Node-local repository of the tenant
+     */
+    public TaskRepository partition(String name) {
+        return repositories.computeIfAbsent(name, repository::forTenant);
+    }
+
+    /**
+     * Writes the buffered changes of the tenants' repositories, as often as the application's write-behind buffer.
+     */
+    @Scheduled(fixedDelayString = "${taskapp.storage.write-behind.flush-interval-ms:200}")
+    public void flush() {
+        forEachRepository("flush", TaskRepository::flush);
+    }
+
+    /**
+     * Compacts the journals of the tenants' repositories, as often as the application's journals.
+     */
+    @Scheduled(fixedDelayString = "${taskapp.storage.journal.compact-interval-ms:60000}")
+    public void compactJournals() {
+        forEachRepository("journal compaction", TaskRepository::compactJournals);
+    }
+
+    /**
+     * Archives the closed months of the tenants' repositories, as often as the application's archiving.
+     */
+    @Scheduled(fixedDelayString = "${taskapp.storage.archive.interval-ms:60000}")
+    public void archiveClosedMonths() {
+        forEachRepository("archiving", TaskRepository::archiveClosedMonths);
+    }
+
+    /**
+     * Runs background work on every open tenant repository, a failure of one tenant doesn't stop the others.
+     * @param work Name of the work for the error message
+     * @param action Work to run
+     */
+    private void forEachRepository(String work, Consumer<TaskRepository> action) {
+        for (Map.Entry<String, TaskRepository> entry : repositories.entrySet()) {
+            try {
+                action.accept(entry.getValue());
+            } catch (RuntimeException e) {
+                System.err.println("The " + work + " of tenant " + entry.getKey() + " failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Closes the tenants' repositories on shutdown.
+     */
+    @PreDestroy
+    public void close() {
+        for (TaskRepository tenantRepository : repositories.values()) {
+            tenantRepository.close();
+        }
+    }
+}
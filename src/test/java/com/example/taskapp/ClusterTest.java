@@ -0,0 +1,174 @@
+package com.example.taskapp;
+
+import com.example.taskapp.controller.StatsController;
+import com.example.taskapp.storage.Task;
+import com.example.taskapp.storage.TaskPage;
+import com.example.taskapp.storage.TaskQuery;
+import com.example.taskapp.storage.TaskRepository;
+import com.example.taskapp.storage.TaskStats;
+import com.example.taskapp.storage.UserTask;
+import com.example.taskapp.tenant.Tenants;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests the partitioned deployment with two nodes running on different ports of this machine,
+ * each with its own tasks directory.
+ */
+public class ClusterTest {
+
+    private static final int USERS = 20;
+
+    @TempDir
+    static Path directory;
+
+    private static ConfigurableApplicationContext first;
+    private static ConfigurableApplicationContext second;
+    private static int secondPort;
+
+    private static String user(int i) {
+        return "cluster" + i + "@user.cz";
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static ConfigurableApplicationContext startNode(int port, String nodes, String name) {
+        return new SpringApplicationBuilder(TaskappApplication.class).run(
+                "--server.port=" + port,
+                "--server.address=127.0.0.1",
+                "--taskapp.storage.directory=" + directory.resolve(name),
+                "--taskapp.cluster.enabled=true",
+                "--taskapp.cluster.nodes=" + nodes,
+                "--taskapp.cluster.self=http://127.0.0.1:" + port,
+                "--taskapp.cluster.secret=cluster-test");
+    }
+
+    @BeforeAll
+    static void startCluster() throws IOException {
+        int firstPort = freePort();
+        secondPort = freePort();
+        String nodes = "http://127.0.0.1:" + firstPort + ",http://127.0.0.1:" + secondPort;
+        first = startNode(firstPort, nodes, "first");
+        second = startNode(secondPort, nodes, "second");
+    }
+
+    @AfterAll
+    static void stopCluster() {
+        if (second != null) {
+            second.close();
+        }
+        if (first != null) {
+            first.close();
+        }
+    }
+
+    /**
+     * Tests that completions made on one node are stored by the owning partitions
+     * and that reads over all users gather them from both nodes.
+     */
+    @Test
+    void testUsersArePartitionedAndGathered() {
+        UserTask firstNode = first.getBean(UserTask.class);
+        UserTask secondNode = second.getBean(UserTask.class);
+        for (int i = 0; i < USERS; i++) {
+            firstNode.addTask(user(i), "Prádlo");
+        }
+
+        YearMonth month = YearMonth.now();
+        int storedFirst = first.getBean(TaskRepository.class).findAll(month).size();
+        int storedSecond = second.getBean(TaskRepository.class).findAll(month).size();
+        assertThat(storedFirst, greaterThan(0));
+        assertThat(storedSecond, greaterThan(0));
+        assertThat(storedFirst + storedSecond, is(USERS));
+
+        assertThat(secondNode.getAllUserTasks().keySet(), hasSize(USERS));
+        for (int i = 0; i < USERS; i++) {
+            assertThat(secondNode.getTasksForToday(user(i)), contains("Prádlo"));
+        }
+
+        List<Task> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            TaskPage page = secondNode.findTasks(new TaskQuery(LocalDate.now(), LocalDate.now(), null, cursor, 7));
+            paged.addAll(page.tasks());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        assertThat(paged, hasSize(USERS));
+
+        for (int i = 0; i < USERS; i++) {
+            assertThat(secondNode.removeLastTask(user(i)), is(true));
+        }
+        assertThat(firstNode.getAllUserTasks().keySet(), empty());
+    }
+
+    /**
+     * Tests that the internal partition endpoints require the cluster secret.
+     */
+    @Test
+    void testPartitionEndpointsRequireSecret() throws Exception {
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + secondPort + "/internal/partition/months")).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode(), is(403));
+    }
+
+    /**
+     * Tests that the statistics served by a node include completions made through the other node.
+     */
+    @Test
+    void testStatsAreGatheredFromAllPartitions() {
+        String user = "stats@user.cz";
+        first.getBean(UserTask.class).addTask(user, "Vynést koš");
+        first.getBean(UserTask.class).addTask(user, "Vynést koš");
+
+        TaskStats.Snapshot stats = second.getBean(StatsController.class).getStats(null, user).getBody();
+
+        assertThat(stats.day().get(user), hasEntry("Vynést koš", 2));
+    }
+
+    /**
+     * Tests that the users of a tenant are partitioned like the default tenant's users.
+     */
+    @Test
+    void testTenantsArePartitioned() {
+        UserTask firstNode = first.getBean(Tenants.class).forTenant("novakovi").tasks();
+        for (int i = 0; i < USERS; i++) {
+            firstNode.addTask(user(i), "Umýt zem");
+        }
+
+        YearMonth month = YearMonth.now();
+        int storedFirst = first.getBean(Tenants.class).partition("novakovi").findAll(month).size();
+        int storedSecond = second.getBean(Tenants.class).partition("novakovi").findAll(month).size();
+        assertThat(storedFirst, greaterThan(0));
+        assertThat(storedSecond, greaterThan(0));
+        assertThat(storedFirst + storedSecond, is(USERS));
+
+        UserTask secondNode = second.getBean(Tenants.class).forTenant("novakovi").tasks();
+        assertThat(secondNode.getAllUserTasks().keySet(), hasSize(USERS));
+        assertThat(second.getBean(UserTask.class).getTasksForToday(user(0)), not(hasItem("Umýt zem")));
+    }
+}
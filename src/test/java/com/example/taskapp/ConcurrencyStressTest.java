@@ -0,0 +1,86 @@
+package com.example.taskapp;
+
+import com.example.taskapp.storage.JsonTaskRepository;
+import com.example.taskapp.storage.UserTask;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Stress test for concurrent task completions.
+ * Many threads complete and undo tasks at the same time, afterwards no completion may be missing,
+ * neither in memory nor in the monthly file written to disk.
+ */
+@SpringBootTest
+public class ConcurrencyStressTest {
+
+    private static final int USERS = 16;
+    private static final int TASKS_PER_USER = 40;
+
+    @Autowired
+    private UserTask userTask;
+
+    private static String user(int i) {
+        return "stress" + i + "@user.cz";
+    }
+
+    /**
+     * Runs the given action for every user on a thread pool, several threads per user.
+     */
+    private static void runInParallel(ThrowingUserAction action) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int u = 0; u < USERS; u++) {
+                for (int i = 0; i < TASKS_PER_USER; i++) {
+                    String user = user(u);
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        action.run(user);
+                        return null;
+                    }));
+                }
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface ThrowingUserAction {
+        void run(String user) throws Exception;
+    }
+
+    /**
+     * Tests that no completion is lost under parallel load and that all of them reach the file.
+     */
+    @Test
+    void testNoCompletionLostUnderParallelLoad() throws Exception {
+        runInParallel(user -> userTask.addTask(user, "Prádlo"));
+
+        UserTask reloaded = new UserTask(new JsonTaskRepository("tasks", "snapshot", Long.MAX_VALUE));
+        for (int u = 0; u < USERS; u++) {
+            assertThat(userTask.getTasksForToday(user(u)), hasSize(TASKS_PER_USER));
+            assertThat(reloaded.getTasksForToday(user(u)), hasSize(TASKS_PER_USER));
+        }
+
+        runInParallel(user -> assertThat(userTask.removeLastTask(user), is(true)));
+
+        reloaded = new UserTask(new JsonTaskRepository("tasks", "snapshot", Long.MAX_VALUE));
+        for (int u = 0; u < USERS; u++) {
+            assertThat(userTask.getTasksForToday(user(u)), is(empty()));
+            assertThat(reloaded.getTasksForToday(user(u)), is(empty()));
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.example.taskapp;
 
+import com.example.taskapp.auth.CredentialStore;
+import com.example.taskapp.auth.LoginSessions;
 import com.example.taskapp.controller.LoginController;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpSession;
 import org.springframework.test.web.servlet.MockMvc;
@@ -17,6 +20,7 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
  * Tests the login and logout functionality, as well as handling of incorrect user credentials.
  */
 @WebMvcTest(controllers = LoginController.class)
+@Import({CredentialStore.class, LoginSessions.class})
 @ExtendWith(MockitoExtension.class)
 public class LoginControllerTest {
 
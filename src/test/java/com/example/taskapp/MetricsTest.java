@@ -0,0 +1,46 @@
+package com.example.taskapp;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests that the storage and login meters are exported in the Prometheus format.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+public class MetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+     * Tests that a completion and a failed login show up on /actuator/prometheus.
+     */
+    @Test
+    void testPrometheusEndpoint() throws Exception {
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute("user", "metrics@user.cz");
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/complete").param("task", "Prádlo").session(session))
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/login").param("username", "metrics@user.cz").param("password", "wrong"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/undo-last").session(session))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("taskapp_storage_save_seconds_count")))
+                .andExpect(content().string(containsString("taskapp_storage_load_seconds")))
+                .andExpect(content().string(containsString("taskapp_login_total{result=\"failure\"")));
+    }
+}
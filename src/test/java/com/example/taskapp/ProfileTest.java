@@ -12,6 +12,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -33,6 +34,9 @@ public class ProfileTest {
     @Mock
     private UserTask userTask;
 
+    @Autowired
+    private UserTask storedTasks;
+
     private MockHttpSession session;
 
     /**
@@ -65,6 +69,19 @@ public class ProfileTest {
                 .andExpect(content().string("Not logged in"));
     }
 
+    /**
+     * Test case for a session of a user who is no longer in the users file.
+     */
+    @Test
+    void testGetEmailOfRemovedUser() throws Exception {
+        MockHttpSession removed = new MockHttpSession();
+        removed.setAttribute("user", "neznamy@user.cz");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/email")
+                        .session(removed))
+                .andExpect(status().isUnauthorized());
+    }
+
     /**
      * Test case for retrieving all profiles when the user is logged in.
      */
@@ -97,4 +114,40 @@ public class ProfileTest {
                 .andExpect(status().isUnauthorized());
 
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that the history of all profiles is limited to a year.
+     */
+    @Test
+    void testAllProfilesHistoryRangeIsLimited() throws Exception {
+        MockHttpSession mockSession = new MockHttpSession();
+        mockSession.setAttribute("user", "test@user.cz");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/all-profiles/history")
+                        .param("from", "0001-01-01").param("to", "9999-12-31").session(mockSession))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/all-profiles/history")
+                        .param("from", LocalDate.now().minusDays(30).toString()).session(mockSession))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * Tests that polling an unchanged all-profiles view is answered with 304 until a task is completed.
+     */
+    @Test
+    void testGetAllProfilesConditionalGet() throws Exception {
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/api/all-profiles").session(session))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/all-profiles").session(session).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        storedTasks.addTask("test@user.cz", "Vynést koš");
+        storedTasks.removeLastTask("test@user.cz");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/all-profiles").session(session).header("If-None-Match", etag))
+                .andExpect(status().isOk());
+    }
+}
@@ -12,11 +12,13 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpSession;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -27,7 +29,7 @@ import static org.hamcrest.Matchers.*;
 
 /**
  * Unit tests for the tasks-related endpoints in the TaskApp application.
- * Tests various functionalities such as retrieving tasks, completing tasks, checking user profile tasks, and removing tasks.
+ * Tests various functionalities such as retrieving tasks, completing tasks, checking user profile tasks, and removing and restoring tasks.
  */
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -129,6 +131,89 @@ public class TasksTest {
         assertThat(tasks, not(hasItem("Prádlo")));
     }
 
+    /**
+     * Tests that a task given by its catalog ID is stored under its name.
+     */
+    @Test
+    void testCompleteTaskById() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/complete")
+                        .param("taskId", "4")
+                        .session(session)
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        assertThat(userTask.getTasksForToday("test@user.cz"), hasItem("Umýt zem"));
+    }
+
+    /**
+     * Tests that a task which is not in the catalog is rejected.
+     */
+    @Test
+    void testCompleteUnknownTask() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/complete")
+                        .param("task", "Uklidit garáž")
+                        .session(session)
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        assertThat(userTask.getTasksForToday("test@user.cz"), not(hasItem("Uklidit garáž")));
+    }
+
+    /**
+     * Tests that a batch of completions is stored, entries without a user for the logged-in user.
+     */
+    @Test
+    void testCompleteBatchWhenLoggedIn() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/complete/batch")
+                        .session(session)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"task\": \"Prádlo\"}, {\"task\": \"Umýt zem\"}]"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().string("2"));
+
+        assertThat(userTask.getTasksForToday("test@user.cz"), hasItems("Prádlo", "Umýt zem"));
+    }
+
+    /**
+     * Tests that a batch with an entry without a task is rejected as a whole.
+     */
+    @Test
+    void testCompleteBatchWithInvalidEntry() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/complete/batch")
+                        .session(session)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"task\": \"Prádlo\"}, {\"user\": \"test@user.cz\"}]"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        assertThat(userTask.getTasksForToday("test@user.cz"), not(hasItem("Prádlo")));
+    }
+
+    /**
+     * Tests that a batch with an entry for a user who is not in the users file is rejected.
+     */
+    @Test
+    void testCompleteBatchWithUnknownUser() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/complete/batch")
+                        .session(session)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"task\": \"Prádlo\"}, {\"user\": \"nobody@user.cz\", \"task\": \"Prádlo\"}]"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        assertThat(userTask.getTasksForToday("nobody@user.cz"), empty());
+    }
+
+    /**
+     * Tests that a batch with a completion dated in the future is rejected.
+     */
+    @Test
+    void testCompleteBatchWithFutureDate() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/complete/batch")
+                        .session(session)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"task\": \"Vynést koš\", \"date\": \"" + LocalDate.now().plusDays(1) + "\"}]"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
     /**
      * Tests that the profile endpoint returns today's tasks for a logged-in user.
      */
@@ -142,6 +227,56 @@ public class TasksTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$", hasItem("Udělat myčku")));
     }
 
+    /**
+     * Tests that an unchanged profile is answered with 304 and that a completion changes the ETag.
+     */
+    @Test
+    void testProfileConditionalGet() throws Exception {
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/api/profile").session(session))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/profile").session(session).header("If-None-Match", etag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.content().string(""));
+
+        userTask.addTask("test@user.cz", "Prádlo");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/profile").session(session).header("If-None-Match", etag))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", not(etag)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$", hasItem("Prádlo")));
+    }
+
+    /**
+     * Tests that a completion is pushed to an open event stream.
+     */
+    @Test
+    void testCompletionIsPushedToEventStream() throws Exception {
+        MvcResult stream = mockMvc.perform(MockMvcRequestBuilders.get("/api/events").session(session))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        userTask.addTask("test@user.cz", "Jít se psem");
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!stream.getResponse().getContentAsString(StandardCharsets.UTF_8).contains("Jít se psem")
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(stream.getResponse().getContentAsString(StandardCharsets.UTF_8), allOf(
+                containsString("event:completed"), containsString("\"task\":\"Jít se psem\"")));
+    }
+
+    /**
+     * Tests that the event stream requires login.
+     */
+    @Test
+    void testEventStreamWhenNotLoggedIn() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/events"))
+                .andExpect(MockMvcResultMatchers.status().isUnauthorized());
+    }
+
     /**
      * Tests that the profile endpoint returns an empty list when not logged in.
      */
@@ -201,4 +336,55 @@ public class TasksTest {
         boolean removed = userTask.removeLastTask("test@user.cz");
         assertThat(removed, is(false));
     }
+
+    /**
+     * Tests that several completions can be undone and redone in reverse order.
+     */
+    @Test
+    void testUndoAndRedoLastTask() throws Exception {
+        userTask.addTask("test@user.cz", "Prádlo");
+        userTask.addTask("test@user.cz", "Umýt zem");
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/undo-last").session(session))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/undo-last").session(session))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        assertThat(userTask.getTasksForToday("test@user.cz"), is(empty()));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/redo-last").session(session))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        assertThat(userTask.getTasksForToday("test@user.cz"), contains("Prádlo"));
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/redo-last").session(session))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/redo-last").session(session))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        assertThat(userTask.getTasksForToday("test@user.cz"), contains("Prádlo", "Umýt zem"));
+    }
+
+    /**
+     * Tests that a new completion drops the tasks that could be redone.
+     */
+    @Test
+    void testCompletionClearsRedo() {
+        userTask.addTask("test@user.cz", "Prádlo");
+        userTask.removeLastTask("test@user.cz");
+        userTask.addTask("test@user.cz", "Vynést koš");
+
+        assertThat(userTask.redoLastTask("test@user.cz"), is(false));
+        assertThat(userTask.getTasksForToday("test@user.cz"), contains("Vynést koš"));
+    }
+
+    /**
+     * Tests that a task which is no longer active in the catalog can't be redone.
+     */
+    @Test
+    void testRedoOfTaskMissingFromCatalog() throws Exception {
+        userTask.addTask("test@user.cz", "Vyřazený úkol");
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/undo-last").session(session))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/redo-last").session(session))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        assertThat(userTask.getTasksForToday("test@user.cz"), is(empty()));
+    }
 }
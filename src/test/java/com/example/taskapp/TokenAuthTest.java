@@ -0,0 +1,56 @@
+package com.example.taskapp;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import javax.servlet.http.Cookie;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Tests the stateless token login mode, in which no HttpSession is created.
+ */
+@SpringBootTest(properties = {"taskapp.auth.mode=token", "taskapp.auth.token-secret=MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY="})
+@AutoConfigureMockMvc
+public class TokenAuthTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+     * Tests that the signed cookie from the login authenticates later requests without a session.
+     */
+    @Test
+    void testLoginWithSignedCookie() throws Exception {
+        MvcResult login = mockMvc.perform(MockMvcRequestBuilders.post("/api/login")
+                        .param("username", "tomeckova.alena@gmail.com")
+                        .param("password", "alena1")
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.cookie().httpOnly("TASKAPP_AUTH", true))
+                .andReturn();
+        assertThat(login.getRequest().getSession(false), nullValue());
+        Cookie token = login.getResponse().getCookie("TASKAPP_AUTH");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/email").cookie(token))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().string("tomeckova.alena@gmail.com"));
+    }
+
+    /**
+     * Tests that a cookie with a wrong signature is not accepted.
+     */
+    @Test
+    void testForgedCookieIsRejected() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/email").cookie(new Cookie("TASKAPP_AUTH", "dGVzdEB1c2VyLmN6.9999999999.AAAA")))
+                .andExpect(MockMvcResultMatchers.status().isUnauthorized());
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.taskapp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests the bulk export and import endpoints and the command line mode, each on its own tasks directory.
+ */
+@SpringBootTest(properties = "taskapp.admin.users=test@user.cz")
+@AutoConfigureMockMvc
+public class TransferTest {
+
+    @TempDir
+    static Path directory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @DynamicPropertySource
+    static void storage(DynamicPropertyRegistry registry) {
+        registry.add("taskapp.storage.directory", () -> directory.resolve("server").toString());
+    }
+
+    private static MockHttpSession session(String user) {
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute("user", user);
+        return session;
+    }
+
+    /**
+     * Tests that only configured admins may export.
+     */
+    @Test
+    void testExportRequiresAdmin() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/admin/export"))
+                .andExpect(MockMvcResultMatchers.status().isUnauthorized());
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/admin/export").session(session("another@user.cz")))
+                .andExpect(MockMvcResultMatchers.status().isForbidden());
+    }
+
+    /**
+     * Tests that imported records are exported again and a repeated import is skipped.
+     */
+    @Test
+    void testImportAndExport() throws Exception {
+        String csv = "user,date,task\ntest@user.cz,2025-02-03,Prádlo\nanother@user.cz,2025-02-04,Umýt zem\n";
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(MockMvcRequestBuilders.post("/api/admin/import").param("format", "csv")
+                            .session(session("test@user.cz"))
+                            .content(csv.getBytes(StandardCharsets.UTF_8)))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.imported").value(i == 0 ? 2 : 0))
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.duplicates").value(i == 0 ? 0 : 2));
+        }
+
+        String exported = mockMvc.perform(MockMvcRequestBuilders.get("/api/admin/export")
+                        .param("from", "2025-02-01").param("to", "2025-02-28")
+                        .session(session("test@user.cz")))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        assertThat(exported.lines().toList(), containsInAnyOrder(
+                "{\"user\":\"test@user.cz\",\"date\":\"2025-02-03\",\"task\":\"Prádlo\"}",
+                "{\"user\":\"another@user.cz\",\"date\":\"2025-02-04\",\"task\":\"Umýt zem\"}"));
+    }
+
+    /**
+     * Tests the import and export in the command line mode.
+     */
+    @Test
+    void testCommandLine() throws Exception {
+        Path input = directory.resolve("input.ndjson");
+        Path output = directory.resolve("output.csv");
+        Files.writeString(input, "{\"user\":\"test@user.cz\",\"date\":\"2024-06-01\",\"task\":\"Jít se psem\"}\n");
+        String storage = "--taskapp.storage.directory=" + directory.resolve("cli");
+
+        assertThat(TaskappApplication.runTransfer(new String[]{"import", "--file=" + input, storage}), is(0));
+        assertThat(TaskappApplication.runTransfer(new String[]{"export", "--file=" + output, "--format=csv", storage}), is(0));
+        assertThat(TaskappApplication.runTransfer(new String[]{"export", storage}), is(2));
+        assertThat(TaskappApplication.runTransfer(new String[]{"export", "--file=" + output, "--tenant=../jiný", storage}), is(2));
+
+        assertThat(Files.readAllLines(output), is(List.of("user,date,task", "test@user.cz,2024-06-01,Jít se psem")));
+    }
+}
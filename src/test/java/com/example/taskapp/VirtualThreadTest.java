@@ -0,0 +1,42 @@
+package com.example.taskapp;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.http.HttpStatus;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests the opt-in virtual thread execution mode on a running Tomcat.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "taskapp.virtual-threads.enabled=true")
+public class VirtualThreadTest {
+
+    @Autowired
+    private ServletWebServerApplicationContext context;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    /**
+     * Tests that the connector runs its work on virtual threads and still serves requests.
+     */
+    @Test
+    void testRequestsRunOnVirtualThreads() throws Exception {
+        Executor executor = ((TomcatWebServer) context.getWebServer()).getTomcat()
+                .getConnector().getProtocolHandler().getExecutor();
+        boolean virtual = CompletableFuture.supplyAsync(() -> Thread.currentThread().isVirtual(), executor).get();
+
+        assertThat(virtual, is(true));
+        assertThat(restTemplate.getForEntity("/api/tasks", String.class).getStatusCode(), is(HttpStatus.OK));
+    }
+}
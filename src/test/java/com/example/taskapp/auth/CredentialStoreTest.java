@@ -0,0 +1,102 @@
+package com.example.taskapp.auth;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Unit tests for the credential store.
+ * Tests password verification, pre-hashed passwords, tenants and hot reload of the users file.
+ */
+public class CredentialStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private CredentialStore store;
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.stop();
+        }
+    }
+
+    /**
+     * Tests verification against the users.txt from the classpath.
+     */
+    @Test
+    void testVerifyClasspathUsers() {
+        store = new CredentialStore("", 1000);
+        store.start();
+
+        assertThat(store.verify("tomeckova.alena@gmail.com", "alena1"), is(true));
+        assertThat(store.verify("tomeckova.alena@gmail.com", "alena1"), is(true));
+        assertThat(store.verify("tomeckova.alena@gmail.com", "spatneHeslo"), is(false));
+        assertThat(store.verify("neexistujici.uzivatel@gmail.com", "heslo"), is(false));
+    }
+
+    /**
+     * Tests that passwords stored as {pbkdf2} hashes are verified.
+     */
+    @Test
+    void testVerifyHashedPassword() throws Exception {
+        // PBKDF2WithHmacSHA256, 1000 iterations, salt "salt" for the password "heslo"
+        byte[] hash = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256")
+                .generateSecret(new PBEKeySpec("heslo".toCharArray(), "salt".getBytes(), 1000, 256)).getEncoded();
+        Path users = directory.resolve("users.txt");
+        Files.writeString(users, "test@user.cz,{pbkdf2}1000:c2FsdA==:" + Base64.getEncoder().encodeToString(hash) + "\n");
+        store = new CredentialStore(users.toString(), 1000);
+        store.start();
+
+        assertThat(store.verify("test@user.cz", "heslo"), is(true));
+        assertThat(store.verify("test@user.cz", "jineHeslo"), is(false));
+    }
+
+    /**
+     * Tests that a changed users file is picked up without restart.
+     */
+    @Test
+    void testHotReload() throws Exception {
+        Path users = directory.resolve("users.txt");
+        Files.writeString(users, "test@user.cz,stare\n");
+        store = new CredentialStore(users.toString(), 1000);
+        store.start();
+        assertThat(store.verify("test@user.cz", "stare"), is(true));
+
+        Files.writeString(users, "test@user.cz,nove\n");
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!store.verify("test@user.cz", "nove") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertThat(store.verify("test@user.cz", "nove"), is(true));
+        assertThat(store.verify("test@user.cz", "stare"), is(false));
+    }
+
+    /**
+     * Tests that the optional tenant column is read and invalid tenant names are rejected.
+     */
+    @Test
+    void testTenantColumn() throws Exception {
+        Path users = directory.resolve("users.txt");
+        Files.writeString(users, "a@user.cz,heslo,novakovi\nb@user.cz,heslo\nc@user.cz,heslo,../jini\n");
+        store = new CredentialStore(users.toString(), 1000);
+        store.start();
+
+        assertThat(store.tenantOf("a@user.cz"), is("novakovi"));
+        assertThat(store.tenantOf("b@user.cz"), is(CredentialStore.DEFAULT_TENANT));
+        assertThat(store.tenantOf("neznamy@user.cz"), is(CredentialStore.DEFAULT_TENANT));
+        assertThat(store.verify("a@user.cz", "heslo"), is(true));
+        assertThat(store.verify("c@user.cz", "heslo"), is(false));
+    }
+}
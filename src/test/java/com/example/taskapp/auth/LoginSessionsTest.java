@@ -0,0 +1,53 @@
+package com.example.taskapp.auth;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Unit tests for the signed login tokens.
+ * Tests that tokens are accepted by every instance with the same secret and rejected when tampered with or expired.
+ */
+public class LoginSessionsTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+
+    /**
+     * Tests that a token created by one instance is verified by another one sharing the secret.
+     */
+    @Test
+    void testTokenIsSharedBetweenInstances() {
+        String token = new LoginSessions("token", SECRET, 3600).createToken("test@user.cz", 2_000);
+
+        assertThat(new LoginSessions("token", SECRET, 3600).verifyToken(token, 1_000), is("test@user.cz"));
+        assertThat(new LoginSessions("token", "", 3600).verifyToken(token, 1_000), nullValue());
+    }
+
+    /**
+     * Tests that a token for another user built from a valid signature is rejected.
+     */
+    @Test
+    void testTamperedTokenIsRejected() {
+        LoginSessions sessions = new LoginSessions("token", SECRET, 3600);
+        String token = sessions.createToken("test@user.cz", 2_000);
+        String forged = Base64.getUrlEncoder().withoutPadding().encodeToString("admin@user.cz".getBytes())
+                + token.substring(token.indexOf('.'));
+
+        assertThat(sessions.verifyToken(forged, 1_000), nullValue());
+        assertThat(sessions.verifyToken("garbage", 1_000), nullValue());
+    }
+
+    /**
+     * Tests that an expired token is rejected.
+     */
+    @Test
+    void testExpiredTokenIsRejected() {
+        LoginSessions sessions = new LoginSessions("token", SECRET, 3600);
+
+        assertThat(sessions.verifyToken(sessions.createToken("test@user.cz", 2_000), 2_001), nullValue());
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.taskapp.catalog;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit tests for the task catalog.
+ * Tests lookups by ID and name, retired tasks, rejected files and hot reload of the catalog file.
+ */
+public class TaskCatalogTest {
+
+    @TempDir
+    Path directory;
+
+    private TaskCatalog catalog;
+
+    @AfterEach
+    void tearDown() {
+        if (catalog != null) {
+            catalog.stop();
+        }
+    }
+
+    /**
+     * Tests the catalog.txt from the classpath.
+     */
+    @Test
+    void testClasspathCatalog() {
+        catalog = new TaskCatalog("");
+        catalog.start();
+
+        assertThat(catalog.activeNames(), contains("Udělat myčku", "Prádlo", "Vynést koš", "Umýt zem", "Jít se psem"));
+        assertThat(catalog.byId(2).name(), is("Prádlo"));
+        assertThat(catalog.byName("Prádlo").id(), is(2));
+        assertThat(catalog.byId(99), nullValue());
+        assertThat(catalog.byName("Uklidit pokoj"), nullValue());
+    }
+
+    /**
+     * Tests that retired tasks still resolve but are not listed as active.
+     */
+    @Test
+    void testRetiredTask() throws Exception {
+        Path file = directory.resolve("catalog.txt");
+        Files.writeString(file, "1,Prádlo\n2,Vynést koš,retired\n");
+        catalog = new TaskCatalog(file.toString());
+        catalog.start();
+
+        assertThat(catalog.activeNames(), contains("Prádlo"));
+        assertThat(catalog.byId(2).name(), is("Vynést koš"));
+        assertThat(catalog.byName("Vynést koš").active(), is(false));
+    }
+
+    /**
+     * Tests that a file with a duplicate ID is rejected and the previous catalog stays in place.
+     */
+    @Test
+    void testInvalidFileKeepsCatalog() throws Exception {
+        Path file = directory.resolve("catalog.txt");
+        Files.writeString(file, "1,Prádlo\n");
+        catalog = new TaskCatalog(file.toString());
+        catalog.reload();
+
+        Files.writeString(file, "1,Prádlo\n1,Umýt zem\n");
+        catalog.reload();
+
+        assertThat(catalog.activeNames(), contains("Prádlo"));
+    }
+
+    /**
+     * Tests that a changed catalog file is picked up without restart.
+     */
+    @Test
+    void testHotReload() throws Exception {
+        Path file = directory.resolve("catalog.txt");
+        Files.writeString(file, "1,Prádlo\n");
+        catalog = new TaskCatalog(file.toString());
+        catalog.start();
+        assertThat(catalog.byId(2), nullValue());
+
+        Files.writeString(file, "1,Prádlo\n2,Umýt zem\n");
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (catalog.byId(2) == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertThat(catalog.byId(2).name(), is("Umýt zem"));
+    }
+}
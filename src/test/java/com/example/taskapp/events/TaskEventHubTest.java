@@ -0,0 +1,145 @@
+package com.example.taskapp.events;
+
+import com.example.taskapp.auth.CredentialStore;
+import com.example.taskapp.storage.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit tests for the task event hub.
+ * Tests ordered delivery, tenant isolation, the resync event after a queue overflow and the subscriber limit.
+ */
+public class TaskEventHubTest {
+
+    private TaskEventHub hub;
+
+    @AfterEach
+    void tearDown() {
+        if (hub != null) {
+            hub.close();
+        }
+    }
+
+    /**
+     * Emitter recording the names of the sent events, optionally blocked until released.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        final List<String> names = new CopyOnWriteArrayList<>();
+        final CountDownLatch release;
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (ResponseBodyEmitter.DataWithMediaType data : builder.build()) {
+                String text = data.getData().toString();
+                int start = text.indexOf("event:");
+                if (start >= 0) {
+                    names.add(text.substring(start + 6, text.indexOf('\n', start)));
+                }
+            }
+        }
+
+        void awaitEvents(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (names.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private static Task task(String name) {
+        return new Task("test@user.cz", LocalDate.now(), name);
+    }
+
+    /**
+     * Tests that completions and undos are delivered in order.
+     */
+    @Test
+    void testEventsAreDeliveredInOrder() throws Exception {
+        hub = new TaskEventHub(16, 10, 60_000);
+        RecordingEmitter emitter = new RecordingEmitter(new CountDownLatch(0));
+        hub.subscribe(CredentialStore.DEFAULT_TENANT, emitter);
+
+        hub.taskAdded(task("Prádlo"));
+        hub.taskAdded(task("Umýt zem"));
+        hub.taskRemoved(task("Umýt zem"));
+        emitter.awaitEvents(3);
+
+        assertThat(emitter.names, contains("completed", "completed", "removed"));
+    }
+
+    /**
+     * Tests that subscribers only receive the events of their own tenant.
+     */
+    @Test
+    void testEventsStayInTenant() throws Exception {
+        hub = new TaskEventHub(16, 10, 60_000);
+        RecordingEmitter alfa = new RecordingEmitter(new CountDownLatch(0));
+        RecordingEmitter beta = new RecordingEmitter(new CountDownLatch(0));
+        hub.subscribe("alfa", alfa);
+        hub.subscribe("beta", beta);
+
+        hub.listenerFor("alfa").taskAdded(task("Prádlo"));
+        hub.taskAdded(task("Umýt zem"));
+        hub.listenerFor("beta").taskRemoved(task("Vynést koš"));
+        alfa.awaitEvents(1);
+        beta.awaitEvents(1);
+        Thread.sleep(100);
+
+        assertThat(alfa.names, contains("completed"));
+        assertThat(beta.names, contains("removed"));
+    }
+
+    /**
+     * Tests that a subscriber that can't keep up gets a resync event instead of an unbounded backlog.
+     */
+    @Test
+    void testOverflowSendsResync() throws Exception {
+        hub = new TaskEventHub(2, 10, 60_000);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(release);
+        hub.subscribe(CredentialStore.DEFAULT_TENANT, slow);
+
+        for (int i = 0; i < 10; i++) {
+            hub.taskAdded(task("Prádlo"));
+        }
+        release.countDown();
+        slow.awaitEvents(2);
+        Thread.sleep(100);
+
+        assertThat(slow.names, hasItem("resync"));
+        assertThat(slow.names.size(), lessThanOrEqualTo(4));
+    }
+
+    /**
+     * Tests that no more streams than the limit are opened.
+     */
+    @Test
+    void testSubscriberLimit() {
+        hub = new TaskEventHub(16, 1, 60_000);
+
+        assertThat(hub.subscribe(), notNullValue());
+        assertThat(hub.subscribe(), nullValue());
+        assertThat(hub.getSubscriberCount(), is(1));
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.taskapp.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit tests for the consistent hash ring of the partitioned deployment.
+ * Tests that users spread over all nodes and that adding a node moves only a part of them.
+ */
+public class ConsistentHashRingTest {
+
+    private static final int USERS = 10_000;
+
+    private static String user(int i) {
+        return "user" + i + "@user.cz";
+    }
+
+    /**
+     * Tests that every node owns a fair share of the users.
+     */
+    @Test
+    void testUsersSpreadOverNodes() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("http://a:8080", "http://b:8080", "http://c:8080"));
+        Map<String, Integer> owned = new HashMap<>();
+        for (int i = 0; i < USERS; i++) {
+            owned.merge(ring.ownerOf(user(i)), 1, Integer::sum);
+        }
+
+        assertThat(owned.size(), is(3));
+        for (int count : owned.values()) {
+            assertThat(count, is(both(greaterThan(USERS / 4)).and(lessThan(USERS / 2))));
+        }
+    }
+
+    /**
+     * Tests that a new node only takes users over, no user moves between the existing nodes.
+     */
+    @Test
+    void testAddingNodeMovesOnlyItsShare() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("http://a:8080", "http://b:8080", "http://c:8080"));
+        ConsistentHashRing after = new ConsistentHashRing(List.of("http://a:8080", "http://b:8080", "http://c:8080", "http://d:8080"));
+        int moved = 0;
+        for (int i = 0; i < USERS; i++) {
+            String owner = after.ownerOf(user(i));
+            if (!owner.equals(before.ownerOf(user(i)))) {
+                assertThat(owner, is("http://d:8080"));
+                moved++;
+            }
+        }
+
+        assertThat(moved, is(both(greaterThan(USERS / 8)).and(lessThan(USERS / 3))));
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.taskapp.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit tests for the embedded H2 task repository.
+ * Tests storing, querying by user and date, grouping by user and removing the last task.
+ */
+public class H2TaskRepositoryTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 5, 21);
+
+    private H2TaskRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new H2TaskRepository("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.close();
+    }
+
+    /**
+     * Tests that stored tasks are found by user, date and month.
+     */
+    @Test
+    void testSaveAndFind() {
+        repository.save(new Task("test@user.cz", DAY, "Udělat myčku"));
+        repository.save(new Task("test@user.cz", DAY.plusDays(1), "Prádlo"));
+        repository.save(new Task("another@user.cz", DAY, "Jít se psem"));
+        repository.save(new Task("test@user.cz", DAY.plusMonths(1), "Vynést koš"));
+
+        assertThat(repository.findByUserAndDate("test@user.cz", DAY),
+                contains(new Task("test@user.cz", DAY, "Udělat myčku")));
+        assertThat(repository.findByUser("test@user.cz", YearMonth.from(DAY)), hasSize(2));
+
+        Map<String, List<Task>> allUserTasks = repository.findAllByUser(YearMonth.from(DAY));
+        assertThat(allUserTasks.keySet(), containsInAnyOrder("test@user.cz", "another@user.cz"));
+        assertThat(allUserTasks.get("test@user.cz"), hasSize(2));
+    }
+
+    /**
+     * Tests that only the most recent task of the day is removed.
+     */
+    @Test
+    void testRemoveLast() {
+        repository.save(new Task("test@user.cz", DAY, "Uklidit pokoj"));
+        repository.save(new Task("test@user.cz", DAY, "Jít se psem"));
+
+        assertThat(repository.removeLast("test@user.cz", DAY), is(new Task("test@user.cz", DAY, "Jít se psem")));
+        assertThat(repository.findByUserAndDate("test@user.cz", DAY),
+                contains(new Task("test@user.cz", DAY, "Uklidit pokoj")));
+        assertThat(repository.removeLast("nobody@user.cz", DAY), is(nullValue()));
+    }
+
+    /**
+     * Tests that streamed tasks keep all tasks of one user together, in completion order.
+     */
+    @Test
+    void testStreamGroupedByUser() {
+        repository.save(new Task("test@user.cz", DAY, "Udělat myčku"));
+        repository.save(new Task("another@user.cz", DAY, "Jít se psem"));
+        repository.save(new Task("test@user.cz", DAY, "Prádlo"));
+
+        try (Stream<Task> tasks = repository.streamGroupedByUser(YearMonth.from(DAY))) {
+            assertThat(tasks.map(Task::task).toList(), contains("Jít se psem", "Udělat myčku", "Prádlo"));
+        }
+    }
+
+    /**
+     * Tests paging with cursors over a date range.
+     */
+    @Test
+    void testFindPage() {
+        repository.save(new Task("test@user.cz", DAY, "Udělat myčku"));
+        repository.save(new Task("test@user.cz", DAY.plusMonths(1), "Prádlo"));
+        repository.save(new Task("test@user.cz", DAY.plusMonths(2), "Vynést koš"));
+
+        TaskPage first = repository.findPage(new TaskQuery(DAY, DAY.plusMonths(2), null, null, 2));
+        TaskPage second = repository.findPage(new TaskQuery(DAY, DAY.plusMonths(2), null, first.nextCursor(), 2));
+
+        assertThat(first.tasks(), hasSize(2));
+        assertThat(second.tasks().get(0).task(), is("Vynést koš"));
+        assertThat(second.nextCursor(), is(nullValue()));
+    }
+
+    /**
+     * Tests that the months with stored tasks are listed in ascending order.
+     */
+    @Test
+    void testMonths() {
+        repository.save(new Task("test@user.cz", DAY.plusMonths(2), "Prádlo"));
+        repository.save(new Task("test@user.cz", DAY, "Prádlo"));
+
+        assertThat(repository.months(), contains(YearMonth.from(DAY), YearMonth.from(DAY.plusMonths(2))));
+    }
+}
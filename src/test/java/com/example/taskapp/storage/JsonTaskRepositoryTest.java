@@ -0,0 +1,155 @@
+package com.example.taskapp.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for the JSON file task repository.
+ * Tests paging through date ranges that span several monthly files.
+ */
+public class JsonTaskRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    private JsonTaskRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new JsonTaskRepository(directory.toString(), "snapshot", Long.MAX_VALUE);
+        repository.save(new Task("test@user.cz", LocalDate.of(2025, 3, 31), "Prádlo"));
+        repository.save(new Task("test@user.cz", LocalDate.of(2025, 4, 2), "Umýt zem"));
+        repository.save(new Task("another@user.cz", LocalDate.of(2025, 4, 3), "Jít se psem"));
+        repository.save(new Task("test@user.cz", LocalDate.of(2025, 4, 30), "Vynést koš"));
+        repository.save(new Task("test@user.cz", LocalDate.of(2025, 5, 1), "Udělat myčku"));
+        repository.save(new Task("test@user.cz", LocalDate.of(2025, 6, 1), "Prádlo"));
+    }
+
+    /**
+     * Tests that following the cursors returns every task in the range exactly once.
+     */
+    @Test
+    void testPagesAcrossMonths() {
+        List<String> tasks = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            TaskPage page = repository.findPage(new TaskQuery(LocalDate.of(2025, 4, 1), LocalDate.of(2025, 5, 31), null, cursor, 2));
+            page.tasks().forEach(task -> tasks.add(task.task()));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(tasks, contains("Umýt zem", "Jít se psem", "Vynést koš", "Udělat myčku"));
+        assertThat(pages, is(2));
+    }
+
+    /**
+     * Tests filtering by user.
+     */
+    @Test
+    void testFilterByUser() {
+        TaskPage page = repository.findPage(new TaskQuery(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31), "another@user.cz", null, 10));
+
+        assertThat(page.tasks(), contains(new Task("another@user.cz", LocalDate.of(2025, 4, 3), "Jít se psem")));
+        assertThat(page.nextCursor(), is(nullValue()));
+    }
+
+    /**
+     * Tests that an unbounded range only reads the stored months.
+     */
+    @Test
+    void testUnboundedRange() {
+        TaskPage page = repository.findPage(new TaskQuery(LocalDate.of(1, 1, 1), LocalDate.of(9999, 12, 31), null, null, 10));
+
+        assertThat(page.tasks(), hasSize(6));
+        assertThat(page.nextCursor(), is(nullValue()));
+    }
+
+    /**
+     * Tests that undoing a task already paged past doesn't make the next page skip a task.
+     */
+    @Test
+    void testUndoBetweenPages() {
+        LocalDate today = LocalDate.now();
+        repository.save(new Task("test@user.cz", today, "Prádlo"));
+        repository.save(new Task("another@user.cz", today, "Jít se psem"));
+        repository.save(new Task("test@user.cz", today, "Vynést koš"));
+
+        TaskPage first = repository.findPage(new TaskQuery(today, today, null, null, 2));
+        repository.removeLast("another@user.cz", today);
+        TaskPage second = repository.findPage(new TaskQuery(today, today, null, first.nextCursor(), 2));
+
+        assertThat(first.tasks(), hasSize(2));
+        assertThat(second.tasks(), contains(new Task("test@user.cz", today, "Vynést koš")));
+        assertThat(second.nextCursor(), is(nullValue()));
+    }
+
+    /**
+     * Tests that a malformed cursor is rejected.
+     */
+    @Test
+    void testInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () ->
+                repository.findPage(new TaskQuery(LocalDate.of(2025, 4, 1), LocalDate.of(2025, 5, 31), null, "nonsense", 2)));
+    }
+
+    /**
+     * Tests that a batch spanning two months in journal mode is readable after a restart.
+     */
+    @Test
+    void testSaveAllInJournalMode() {
+        JsonTaskRepository journaled = new JsonTaskRepository(directory.resolve("journal").toString(), "journal", Long.MAX_VALUE);
+        LocalDate today = LocalDate.now();
+        journaled.saveAll(List.of(
+                new Task("test@user.cz", today, "Prádlo"),
+                new Task("another@user.cz", today, "Umýt zem"),
+                new Task("test@user.cz", today.minusMonths(1), "Vynést koš")));
+        journaled.close();
+
+        JsonTaskRepository reopened = new JsonTaskRepository(directory.resolve("journal").toString(), "journal", Long.MAX_VALUE);
+        assertThat(reopened.findByUserAndDate("test@user.cz", today), contains(new Task("test@user.cz", today, "Prádlo")));
+        assertThat(reopened.findAllByUser(YearMonth.from(today)).keySet(), containsInAnyOrder("test@user.cz", "another@user.cz"));
+        assertThat(reopened.findByUser("test@user.cz", YearMonth.from(today.minusMonths(1))), hasSize(1));
+        reopened.close();
+    }
+
+    /**
+     * Tests that closed months are replaced by smaller archives that answer the same queries,
+     * and that a later write to an archived month is kept.
+     */
+    @Test
+    void testArchiveClosedMonths() throws Exception {
+        Path april = directory.resolve("tasks_2025_04.json");
+        long jsonSize = Files.size(april);
+        List<Task> before = repository.findByUser("test@user.cz", YearMonth.of(2025, 4));
+        JsonTaskRepository archiving = new JsonTaskRepository(directory.toString(), "snapshot", Long.MAX_VALUE, true);
+
+        archiving.archiveClosedMonths();
+
+        Path archive = directory.resolve("tasks_2025_04" + MonthArchive.SUFFIX);
+        assertThat(Files.exists(april), is(false));
+        assertThat(Files.size(archive), lessThan(jsonSize));
+        assertThat(archiving.findByUser("test@user.cz", YearMonth.of(2025, 4)), is(before));
+        assertThat(archiving.findByUserAndDate("another@user.cz", LocalDate.of(2025, 4, 3)), hasSize(1));
+        assertThat(archiving.findAllByUser(YearMonth.of(2025, 4)).keySet(), containsInAnyOrder("test@user.cz", "another@user.cz"));
+
+        archiving.save(new Task("test@user.cz", LocalDate.of(2025, 4, 5), "Prádlo"));
+        archiving.archiveClosedMonths();
+
+        assertThat(archiving.findByUser("test@user.cz", YearMonth.of(2025, 4)), hasSize(before.size() + 1));
+        assertThat(Files.exists(april), is(false));
+    }
+}
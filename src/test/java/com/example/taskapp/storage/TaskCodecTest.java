@@ -0,0 +1,84 @@
+package com.example.taskapp.storage;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for the streaming JSON encoding of tasks.
+ */
+public class TaskCodecTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Tests that Czech task names survive a write and read as UTF-8.
+     */
+    @Test
+    void testRoundTripKeepsCzechCharacters() throws IOException {
+        Path file = directory.resolve("tasks_2025_05.json");
+        List<Task> tasks = List.of(new Task("test@user.cz", LocalDate.of(2025, 5, 21), "Udělat myčku"),
+                new Task("test@user.cz", LocalDate.of(2025, 5, 22), "Umýt zem"));
+
+        TaskCodec.writeArray(file, tasks);
+
+        assertThat(Files.readString(file, StandardCharsets.UTF_8), containsString("Udělat myčku"));
+        assertThat(TaskCodec.readArray(file), is(tasks));
+    }
+
+    /**
+     * Tests reading the pretty-printed files written by earlier versions, with any field order.
+     */
+    @Test
+    void testReadsExistingFormat() throws IOException {
+        Path file = directory.resolve("tasks_2025_05.json");
+        Files.writeString(file, "[\n  {\n    \"date\": \"2025-05-21\",\n    \"task\": \"Prádlo\",\n    \"user\": \"test@user.cz\"\n  },"
+                + "{\"user\": \"test@user.cz\", \"task\": \"Prádlo\", \"date\": \"2025-05-22\", \"note\": {\"a\": 1}}]", StandardCharsets.UTF_8);
+
+        List<Task> tasks = TaskCodec.readArray(file);
+
+        assertThat(tasks, hasSize(2));
+        assertThat(tasks.get(1).date(), is(LocalDate.of(2025, 5, 22)));
+        assertThat(tasks.get(0).user(), sameInstance(tasks.get(1).user()));
+    }
+
+    /**
+     * Tests that a file with an element that is not a task, or without the end of the array, is rejected.
+     */
+    @Test
+    void testRejectsDamagedArray() throws IOException {
+        Path file = directory.resolve("tasks_2025_05.json");
+        Files.writeString(file, "[{\"user\": \"test@user.cz\", \"task\": \"Prádlo\", \"date\": \"2025-05-21\"}, 42]", StandardCharsets.UTF_8);
+        assertThrows(JsonParseException.class, () -> TaskCodec.readArray(file));
+
+        Files.writeString(file, "[{\"user\": \"test@user.cz\", \"task\": \"Prádlo\", \"date\": \"2025-05-21\"}", StandardCharsets.UTF_8);
+        assertThrows(IOException.class, () -> TaskCodec.readArray(file));
+    }
+
+    /**
+     * Tests that journal lines keep the tombstone flag and torn lines are rejected.
+     */
+    @Test
+    void testJournalEntries() throws IOException {
+        Task task = new Task("test@user.cz", LocalDate.of(2025, 5, 21), "Jít se psem");
+        String lines = new String(TaskCodec.writeEntries(List.of(TaskJournal.Entry.added(task), TaskJournal.Entry.removed(task))),
+                StandardCharsets.UTF_8);
+        String[] split = lines.split("\n");
+
+        assertThat(TaskCodec.readEntry(split[0]), is(TaskJournal.Entry.added(task)));
+        assertThat(TaskCodec.readEntry(split[1]), is(TaskJournal.Entry.removed(task)));
+        assertThrows(IOException.class, () -> TaskCodec.readEntry(split[1].substring(0, 20)));
+    }
+}
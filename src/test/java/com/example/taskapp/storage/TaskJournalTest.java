@@ -0,0 +1,122 @@
+package com.example.taskapp.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit tests for the append-only task journal.
+ * Tests appending, replaying tombstones, concurrent group commit and sealing for compaction.
+ */
+public class TaskJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private static Task task(String user, String task) {
+        return new Task(user, LocalDate.of(2025, 5, 21), task);
+    }
+
+    /**
+     * Tests that appended records and tombstones are replayed on top of the snapshot.
+     */
+    @Test
+    void testReplayAppliesTombstones() throws Exception {
+        try (TaskJournal journal = new TaskJournal(directory.resolve("tasks_2025_05.json"))) {
+            journal.append(TaskJournal.Entry.added(task("test@user.cz", "Prádlo")));
+            journal.append(TaskJournal.Entry.added(task("test@user.cz", "Vynést koš")));
+            journal.append(TaskJournal.Entry.removed(task("test@user.cz", "Vynést koš")));
+
+            List<Task> tasks = new ArrayList<>();
+            journal.replayInto(tasks);
+
+            assertThat(tasks, contains(task("test@user.cz", "Prádlo")));
+        }
+    }
+
+    /**
+     * Tests that no record is lost when many threads append at the same time.
+     */
+    @Test
+    void testConcurrentAppends() throws Exception {
+        try (TaskJournal journal = new TaskJournal(directory.resolve("tasks_2025_05.json"))) {
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                String user = "user" + t + "@user.cz";
+                Thread thread = new Thread(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        try {
+                            journal.append(TaskJournal.Entry.added(task(user, "Prádlo")));
+                        } catch (Exception e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            List<Task> tasks = new ArrayList<>();
+            journal.replayInto(tasks);
+            assertThat(tasks, hasSize(400));
+        }
+    }
+
+    /**
+     * Tests that sealing moves the journal aside and new appends start a fresh journal.
+     */
+    @Test
+    void testSealAndCompact() throws Exception {
+        Path snapshot = directory.resolve("tasks_2025_05.json");
+        try (TaskJournal journal = new TaskJournal(snapshot)) {
+            journal.append(TaskJournal.Entry.added(task("test@user.cz", "Prádlo")));
+            assertThat(journal.seal(), is(true));
+            journal.append(TaskJournal.Entry.added(task("test@user.cz", "Umýt zem")));
+
+            List<Task> compacted = new ArrayList<>();
+            TaskJournal.replayFile(journal.getSealedFile(), compacted);
+            Path tmp = directory.resolve("tasks_2025_05.json.tmp");
+            TaskCodec.writeArray(tmp, compacted);
+            journal.completeCompaction(tmp);
+
+            assertThat(Files.exists(journal.getSealedFile()), is(false));
+            List<Task> tasks = TaskCodec.readArray(snapshot);
+            journal.replayInto(tasks);
+            assertThat(tasks, hasSize(2));
+        }
+    }
+
+    /**
+     * Tests that a record appended after a torn last line is replayed and only the torn line is lost.
+     */
+    @Test
+    void testAppendAfterTornTail() throws Exception {
+        Path journalFile = directory.resolve("tasks_2025_05.journal");
+        byte[] complete = TaskCodec.writeEntries(List.of(TaskJournal.Entry.added(task("test@user.cz", "Prádlo"))));
+        byte[] torn = TaskCodec.writeEntries(List.of(TaskJournal.Entry.added(task("test@user.cz", "Zalít kytky"))));
+        Files.write(journalFile, complete);
+        Files.write(journalFile, Arrays.copyOf(torn, torn.length / 2), StandardOpenOption.APPEND);
+
+        try (TaskJournal journal = new TaskJournal(directory.resolve("tasks_2025_05.json"))) {
+            journal.append(TaskJournal.Entry.added(task("test@user.cz", "Vynést koš")));
+
+            List<Task> tasks = new ArrayList<>();
+            journal.replayInto(tasks);
+
+            assertThat(tasks, contains(task("test@user.cz", "Prádlo"), task("test@user.cz", "Vynést koš")));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.taskapp.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit tests for the incrementally maintained task statistics.
+ * Uses an in-memory H2 repository so the initial load can be checked as well.
+ */
+public class TaskStatsTest {
+
+    private H2TaskRepository repository;
+    private TaskStats stats;
+    private UserTask userTask;
+
+    @BeforeEach
+    void setUp() {
+        repository = new H2TaskRepository("jdbc:h2:mem:" + UUID.randomUUID());
+        stats = new TaskStats(repository);
+        userTask = new UserTask(repository, List.of(stats));
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.close();
+    }
+
+    /**
+     * Tests that completions and undo update the day, week and month counts.
+     */
+    @Test
+    void testCountsFollowAddAndUndo() {
+        stats.hydrate();
+        userTask.addTask("test@user.cz", "Prádlo");
+        userTask.addTask("test@user.cz", "Prádlo");
+        userTask.addTask("test@user.cz", "Vynést koš");
+        userTask.addTask("another@user.cz", "Prádlo");
+        userTask.removeLastTask("test@user.cz");
+
+        TaskStats.Snapshot snapshot = stats.snapshot(LocalDate.now());
+
+        assertThat(snapshot.day().get("test@user.cz"), is(Map.of("Prádlo", 2)));
+        assertThat(snapshot.week().get("another@user.cz"), is(Map.of("Prádlo", 1)));
+        assertThat(snapshot.month().keySet(), contains("another@user.cz", "test@user.cz"));
+    }
+
+    /**
+     * Tests that stored tasks of the current month are counted on startup.
+     */
+    @Test
+    void testHydrateFromRepository() {
+        repository.save(new Task("test@user.cz", LocalDate.now(), "Umýt zem"));
+
+        stats.hydrate();
+
+        assertThat(stats.snapshot(LocalDate.now()).month().get("test@user.cz"), is(Map.of("Umýt zem", 1)));
+        assertThat(stats.snapshot(LocalDate.now().minusYears(1)).month(), is(anEmptyMap()));
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.taskapp.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit tests for the bulk export and import.
+ * Tests round trips in both formats, deduplication and validation of imported lines.
+ */
+public class TaskTransferTest {
+
+    @TempDir
+    Path directory;
+
+    private UserTask source;
+    private UserTask target;
+    private JsonTaskRepository targetRepository;
+    private final TaskTransfer transfer = new TaskTransfer(2);
+
+    @BeforeEach
+    void setUp() {
+        JsonTaskRepository sourceRepository = new JsonTaskRepository(directory.resolve("source").toString(), "snapshot", Long.MAX_VALUE);
+        sourceRepository.save(new Task("test@user.cz", LocalDate.of(2025, 3, 31), "Prádlo"));
+        sourceRepository.save(new Task("test@user.cz", LocalDate.of(2025, 3, 31), "Prádlo"));
+        sourceRepository.save(new Task("another@user.cz", LocalDate.of(2025, 4, 1), "Vynést koš, hned"));
+        sourceRepository.save(new Task("test@user.cz", LocalDate.of(2025, 12, 31), "Umýt \"zem\""));
+        source = new UserTask(sourceRepository);
+        targetRepository = new JsonTaskRepository(directory.resolve("target").toString(), "snapshot", Long.MAX_VALUE);
+        target = new UserTask(targetRepository);
+    }
+
+    private String export(TaskTransfer.Format format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        transfer.export(source, null, null, format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private TaskTransfer.ImportResult importInto(UserTask service, String data, TaskTransfer.Format format) throws Exception {
+        return transfer.importTasks(service, user -> true, format, new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private void assertRoundTrip(TaskTransfer.Format format) throws Exception {
+        TaskTransfer.ImportResult result = importInto(target, export(format), format);
+
+        assertThat(result.imported(), is(4L));
+        assertThat(result.rejected(), is(0L));
+        assertThat(targetRepository.findAll(YearMonth.of(2025, 3)), hasSize(2));
+        assertThat(targetRepository.findAll(YearMonth.of(2025, 4)).get(0).task(), is("Vynést koš, hned"));
+        assertThat(targetRepository.findAll(YearMonth.of(2025, 12)).get(0).task(), is("Umýt \"zem\""));
+    }
+
+    /**
+     * Tests that an exported NDJSON history is imported unchanged, repeated completions included.
+     */
+    @Test
+    void testRoundTripNdjson() throws Exception {
+        assertRoundTrip(TaskTransfer.Format.NDJSON);
+    }
+
+    /**
+     * Tests that an exported CSV history is imported unchanged, including quoted fields.
+     */
+    @Test
+    void testRoundTripCsv() throws Exception {
+        assertRoundTrip(TaskTransfer.Format.CSV);
+    }
+
+    /**
+     * Tests that importing the same data twice stores every record once.
+     */
+    @Test
+    void testImportSkipsStoredRecords() throws Exception {
+        String data = export(TaskTransfer.Format.NDJSON);
+        importInto(target, data, TaskTransfer.Format.NDJSON);
+
+        TaskTransfer.ImportResult again = importInto(target, data, TaskTransfer.Format.NDJSON);
+
+        assertThat(again.imported(), is(0L));
+        assertThat(again.duplicates(), is(4L));
+        assertThat(targetRepository.findAll(YearMonth.of(2025, 3)), hasSize(2));
+    }
+
+    /**
+     * Tests that invalid lines are rejected with their line numbers and valid lines are still imported.
+     */
+    @Test
+    void testInvalidLinesAreRejected() throws Exception {
+        String data = "user,date,task\n"
+                + "test@user.cz,2025-05-01,Prádlo\n"
+                + "bez-zavinace,2025-05-01,Prádlo\n"
+                + "test@user.cz,2025-13-01,Prádlo\n"
+                + "test@user.cz," + LocalDate.now().plusDays(1) + ",Prádlo\n"
+                + "test@user.cz,2025-05-01,\n"
+                + "test@user.cz,\"2025-05-01,Prádlo\n";
+
+        TaskTransfer.ImportResult result = importInto(target, data, TaskTransfer.Format.CSV);
+
+        assertThat(result.imported(), is(1L));
+        assertThat(result.rejected(), is(5L));
+        assertThat(result.errors().get(0), startsWith("line 3:"));
+    }
+}
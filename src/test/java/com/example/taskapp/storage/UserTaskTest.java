@@ -0,0 +1,108 @@
+package com.example.taskapp.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit tests for the task service on top of several monthly partitions.
+ * Tests that the user's history is read across month boundaries.
+ */
+public class UserTaskTest {
+
+    @TempDir
+    Path directory;
+
+    private JsonTaskRepository repository;
+    private UserTask userTask;
+
+    @BeforeEach
+    void setUp() {
+        repository = new JsonTaskRepository(directory.toString(), "snapshot", Long.MAX_VALUE);
+        userTask = new UserTask(repository);
+        repository.save(new Task("test@user.cz", LocalDate.of(2025, 3, 31), "Prádlo"));
+        repository.save(new Task("another@user.cz", LocalDate.of(2025, 4, 1), "Vynést koš"));
+        repository.save(new Task("test@user.cz", LocalDate.of(2025, 12, 31), "Umýt zem"));
+        userTask.addTask("test@user.cz", "Jít se psem");
+    }
+
+    /**
+     * Tests that all stored months are listed as partitions in ascending order.
+     */
+    @Test
+    void testMonths() {
+        assertThat(repository.months(), contains(YearMonth.of(2025, 3), YearMonth.of(2025, 4),
+                YearMonth.of(2025, 12), YearMonth.now()));
+    }
+
+    /**
+     * Tests that the lifetime history contains tasks from previous months, oldest first.
+     */
+    @Test
+    void testAllTasksForUserAcrossMonths() {
+        assertThat(userTask.getAllTasksForUser("test@user.cz"), contains(
+                "Prádlo (splněno: 2025-03-31)",
+                "Umýt zem (splněno: 2025-12-31)",
+                "Jít se psem (splněno: " + LocalDate.now() + ")"));
+    }
+
+    /**
+     * Tests that the streamed history matches the list.
+     */
+    @Test
+    void testStreamAllTasksForUserAcrossMonths() {
+        try (Stream<Task> tasks = userTask.streamAllTasksForUser("test@user.cz")) {
+            List<LocalDate> dates = tasks.map(Task::date).toList();
+            assertThat(dates, contains(LocalDate.of(2025, 3, 31), LocalDate.of(2025, 12, 31), LocalDate.now()));
+        }
+    }
+
+    /**
+     * Tests pruning of partitions outside of a date range.
+     */
+    @Test
+    void testPrune() {
+        MonthPartitions partitions = new MonthPartitions(repository);
+        assertThat(partitions.prune(LocalDate.of(2025, 4, 15), LocalDate.of(2025, 12, 1)),
+                contains(YearMonth.of(2025, 4), YearMonth.of(2025, 12)));
+    }
+
+    /**
+     * Tests the parallel aggregation of all users over a range of months.
+     */
+    @Test
+    void testAllUserTasksInRange() {
+        Map<String, List<String>> allUserTasks = userTask.getAllUserTasks(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 12, 31));
+
+        assertThat(allUserTasks.keySet(), containsInAnyOrder("test@user.cz", "another@user.cz"));
+        assertThat(allUserTasks.get("test@user.cz"), contains("Prádlo (2025-03-31)", "Umýt zem (2025-12-31)"));
+    }
+
+    /**
+     * Tests that the parallel grouping keeps each user's tasks in completion order.
+     */
+    @Test
+    void testGroupByUserKeepsOrder() {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            tasks.add(new Task("user" + (i % 7) + "@user.cz", LocalDate.of(2025, 1, 1).plusDays(i), "Prádlo"));
+        }
+
+        List<String> first = UserTask.groupByUser(tasks).get("user0@user.cz");
+
+        assertThat(first, hasSize(1429));
+        assertThat(first.get(1), is("Prádlo (" + LocalDate.of(2025, 1, 8) + ")"));
+        assertThat(first.get(1428), is("Prádlo (" + LocalDate.of(2025, 1, 1).plusDays(9996) + ")"));
+    }
+}
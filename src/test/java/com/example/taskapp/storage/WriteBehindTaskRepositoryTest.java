@@ -0,0 +1,162 @@
+package com.example.taskapp.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for the write-behind cache.
+ * Tests that buffered completions are readable before they are flushed, undo inside the buffer
+ * the durability levels and concurrent flushes, against a JSON repository in a temporary directory.
+ */
+public class WriteBehindTaskRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    private JsonTaskRepository backend;
+
+    @BeforeEach
+    void setUp() {
+        backend = new JsonTaskRepository(directory.toString(), "snapshot", Long.MAX_VALUE);
+    }
+
+    /**
+     * Tests that a buffered completion is visible at once and reaches the backend with the flush.
+     */
+    @Test
+    void testBufferedCompletionIsReadableBeforeFlush() {
+        WriteBehindTaskRepository repository = new WriteBehindTaskRepository(backend, "buffered", 60_000, 1000);
+        LocalDate today = LocalDate.now();
+        repository.save(new Task("test@user.cz", today, "Prádlo"));
+
+        assertThat(backend.findByUserAndDate("test@user.cz", today), empty());
+        assertThat(repository.findByUserAndDate("test@user.cz", today), contains(new Task("test@user.cz", today, "Prádlo")));
+        assertThat(repository.findAllByUser(YearMonth.now()).get("test@user.cz"), hasSize(1));
+        assertThat(repository.months(), hasItem(YearMonth.now()));
+
+        repository.close();
+
+        assertThat(new JsonTaskRepository(directory.toString(), "snapshot", Long.MAX_VALUE)
+                .findByUserAndDate("test@user.cz", today), contains(new Task("test@user.cz", today, "Prádlo")));
+    }
+
+    /**
+     * Tests that undo takes the newest task out of the buffer and falls back to the backend.
+     */
+    @Test
+    void testRemoveLastFromBufferThenBackend() {
+        WriteBehindTaskRepository repository = new WriteBehindTaskRepository(backend, "buffered", 60_000, 1000);
+        LocalDate today = LocalDate.now();
+        backend.save(new Task("test@user.cz", today, "Umýt zem"));
+        repository.save(new Task("test@user.cz", today, "Prádlo"));
+
+        assertThat(repository.removeLast("test@user.cz", today).task(), is("Prádlo"));
+        assertThat(repository.removeLast("test@user.cz", today).task(), is("Umýt zem"));
+        assertThat(repository.findByUserAndDate("test@user.cz", today), empty());
+    }
+
+    /**
+     * Tests that a full buffer is flushed by the completion that fills it.
+     */
+    @Test
+    void testFullBufferIsFlushed() {
+        WriteBehindTaskRepository repository = new WriteBehindTaskRepository(backend, "buffered", 60_000, 2);
+        LocalDate today = LocalDate.now();
+        repository.saveAll(List.of(new Task("test@user.cz", today, "Prádlo"), new Task("test@user.cz", today, "Umýt zem")));
+
+        assertThat(backend.findByUserAndDate("test@user.cz", today), hasSize(2));
+    }
+
+    /**
+     * Tests that with durability "flushed" a completion is stored before the call returns,
+     * even without a scheduler running the periodic flush.
+     */
+    @Test
+    void testFlushedDurabilityWaitsForWrite() {
+        WriteBehindTaskRepository repository = new WriteBehindTaskRepository(backend, "flushed", 50, 1000);
+        LocalDate today = LocalDate.now();
+        repository.save(new Task("test@user.cz", today, "Jít se psem"));
+
+        assertThat(backend.findByUserAndDate("test@user.cz", today), contains(new Task("test@user.cz", today, "Jít se psem")));
+    }
+
+    /**
+     * Tests that completions are buffered while a batch is being written, that a read overlapping
+     * the write sees every completion exactly once and that reads of other users don't wait for the write.
+     */
+    @Test
+    void testReadsAndWritesDuringSlowFlush() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        JsonTaskRepository slowBackend = new JsonTaskRepository(directory.toString(), "snapshot", Long.MAX_VALUE) {
+            @Override
+            public void saveAll(List<Task> records) {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.saveAll(records);
+            }
+        };
+        WriteBehindTaskRepository repository = new WriteBehindTaskRepository(slowBackend, "buffered", 60_000, 1000);
+        LocalDate today = LocalDate.now();
+        repository.save(new Task("test@user.cz", today, "Prádlo"));
+        Thread flusher = new Thread(repository::flush);
+        flusher.start();
+        writing.await();
+
+        repository.save(new Task("test@user.cz", today, "Umýt zem"));
+        repository.save(new Task("another@user.cz", today, "Vynést koš"));
+        CompletableFuture<List<Task>> read = CompletableFuture.supplyAsync(() -> repository.findByUserAndDate("test@user.cz", today));
+        List<Task> unrelated = CompletableFuture.supplyAsync(() -> repository.findByUserAndDate("another@user.cz", today))
+                .get(5, TimeUnit.SECONDS);
+        release.countDown();
+        flusher.join();
+
+        assertThat(read.get(), contains(new Task("test@user.cz", today, "Prádlo"), new Task("test@user.cz", today, "Umýt zem")));
+        assertThat(slowBackend.findByUserAndDate("test@user.cz", today), hasSize(1));
+        assertThat(unrelated, contains(new Task("another@user.cz", today, "Vynést koš")));
+    }
+
+    /**
+     * Tests that a batch the backend fails to write stays buffered and readable, and is written by the next flush.
+     */
+    @Test
+    void testFailedFlushKeepsBatchBuffered() throws Exception {
+        Path storage = Files.createDirectory(directory.resolve("storage"));
+        JsonTaskRepository failingBackend = new JsonTaskRepository(storage.toString(), "snapshot", Long.MAX_VALUE);
+        WriteBehindTaskRepository repository = new WriteBehindTaskRepository(failingBackend, "buffered", 60_000, 1000);
+        LocalDate today = LocalDate.now();
+        repository.save(new Task("test@user.cz", today, "Prádlo"));
+        Files.delete(storage);
+        Files.createFile(storage);
+
+        assertThrows(UncheckedIOException.class, repository::flush);
+        assertThat(failingBackend.findByUserAndDate("test@user.cz", today), empty());
+        assertThat(repository.findByUserAndDate("test@user.cz", today), contains(new Task("test@user.cz", today, "Prádlo")));
+
+        Files.delete(storage);
+        Files.createDirectory(storage);
+        repository.flush();
+
+        assertThat(new JsonTaskRepository(storage.toString(), "snapshot", Long.MAX_VALUE)
+                .findByUserAndDate("test@user.cz", today), contains(new Task("test@user.cz", today, "Prádlo")));
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.taskapp.tenant;
+
+import com.example.taskapp.auth.CredentialStore;
+import com.example.taskapp.events.TaskEventHub;
+import com.example.taskapp.storage.JsonTaskRepository;
+import com.example.taskapp.storage.TaskStats;
+import com.example.taskapp.storage.UserTask;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for the tenant storage.
+ * Tests that households are stored in their own directories and don't see each other's tasks.
+ */
+public class TenantsTest {
+
+    @TempDir
+    Path directory;
+
+    private CredentialStore credentials;
+    private TaskEventHub events;
+    private Tenants tenants;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path users = directory.resolve("users.txt");
+        Files.writeString(users, "a@user.cz,heslo,novakovi\nb@user.cz,heslo,dvorakovi\nc@user.cz,heslo\n");
+        credentials = new CredentialStore(users.toString(), 1000);
+        credentials.start();
+        events = new TaskEventHub(16, 10, 60_000);
+        JsonTaskRepository repository = new JsonTaskRepository(directory.resolve("tasks").toString(), "snapshot", Long.MAX_VALUE);
+        tenants = new Tenants(repository, new UserTask(repository), new TaskStats(repository), events, credentials);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tenants.close();
+        events.close();
+        credentials.stop();
+    }
+
+    /**
+     * Tests that each tenant reads and writes only its own files.
+     */
+    @Test
+    void testTenantsAreIsolated() {
+        tenants.forUser("a@user.cz").tasks().addTask("a@user.cz", "Prádlo");
+        tenants.forUser("b@user.cz").tasks().addTask("b@user.cz", "Umýt zem");
+        tenants.forUser("c@user.cz").tasks().addTask("c@user.cz", "Vynést koš");
+
+        assertThat(tenants.forUser("a@user.cz").tasks().getAllUserTasks().keySet(), contains("a@user.cz"));
+        assertThat(tenants.forUser("b@user.cz").tasks().getAllUserTasks().keySet(), contains("b@user.cz"));
+        assertThat(tenants.forUser("c@user.cz").tasks().getAllUserTasks().keySet(), contains("c@user.cz"));
+        assertThat(tenants.forUser("a@user.cz").stats().snapshot(LocalDate.now()).day().keySet(), contains("a@user.cz"));
+        String month = "tasks_" + LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy_MM")) + ".json";
+        assertThat(Files.exists(directory.resolve("tasks").resolve("novakovi").resolve(month)), is(true));
+        assertThat(Files.exists(directory.resolve("tasks").resolve("dvorakovi").resolve(month)), is(true));
+    }
+
+    /**
+     * Tests that users of one tenant share the same services and unknown users get no tenant.
+     */
+    @Test
+    void testTenantIsOpenedOnce() {
+        assertThat(tenants.forUser("a@user.cz"), sameInstance(tenants.forTenant("novakovi")));
+        assertThat(tenants.forUser("c@user.cz").name(), is(CredentialStore.DEFAULT_TENANT));
+        assertThrows(IllegalArgumentException.class, () -> tenants.forUser("neznamy@user.cz"));
+    }
+}